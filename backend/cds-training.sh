@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Records the AppCDS archive shipped in the Jib image. Run by mvn -Pcds package once the
+# dependencies were copied to target/cds/app/libs, it needs a database on localhost:5332.
+#
+#   ./cds-training.sh <final name>
+set -euo pipefail
+
+cd "$(dirname "$0")"
+FINAL_NAME=$1
+PORT=${PORT:-8099}
+WORK=target/cds
+APP=$WORK/app
+ARCHIVE=$WORK/archive/app.jsa
+
+# the layout jib's packaged containerizing mode gives /app, with the same file times, as
+# an archive is only used when every jar on the class path matches the one it was made from
+mkdir -p "$APP/classpath" "$(dirname "$ARCHIVE")"
+cp "target/$FINAL_NAME.jar.original" "$APP/classpath/$FINAL_NAME.original.jar"
+find "$APP" -type f -exec touch -d @1 {} +
+CLASSPATH_JARS="$APP/classpath/$FINAL_NAME.original.jar:$(sed "s|/app/libs|$APP/libs|g" "$WORK/classpath.txt")"
+
+# the archive is dumped when the JVM exits, so it also holds what serving a request loads.
+# It is only mapped by the same JDK build, keep this one on the base image's release
+rm -f "$ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$CLASSPATH_JARS" com.amigoscode.Main \
+      --server.port="$PORT" > "$WORK/training.log" 2>&1 &
+pid=$!
+until curl -sf -o /dev/null "localhost:$PORT/api/v1/customers"; do
+   if ! kill -0 "$pid" 2>/dev/null; then
+      echo "training run did not start, see $WORK/training.log" >&2
+      exit 1
+   fi
+   sleep 0.5
+done
+kill "$pid" && wait "$pid" 2>/dev/null || true
+[ -s "$ARCHIVE" ] || { echo "no archive was written, see $WORK/training.log" >&2; exit 1; }
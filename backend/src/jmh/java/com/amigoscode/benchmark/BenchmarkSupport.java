@@ -0,0 +1,110 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDataGenerator;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+final class BenchmarkSupport {
+
+   private static final long SEED = 42;
+   private static final int SEED_BATCH_SIZE = 100_000;
+
+   private static final String URL = System.getProperty("benchmark.datasource.url", "");
+   private static final String USERNAME = System.getProperty("benchmark.datasource.username", "amigoscode");
+   private static final String PASSWORD = System.getProperty("benchmark.datasource.password", "password");
+
+   private static PostgreSQLContainer<?> postgreSQLContainer;
+
+   private BenchmarkSupport() {
+   }
+
+   // without -Dbenchmark.datasource.url the benchmarks start the same throwaway
+   // postgres container the DAO tests use
+   private static synchronized String url() {
+      if (!URL.isBlank()) {
+         return URL;
+      }
+      if (postgreSQLContainer == null) {
+         postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest")
+               .withDatabaseName("amigoscode-benchmark")
+               .withUsername(USERNAME)
+               .withPassword(PASSWORD);
+         postgreSQLContainer.start();
+      }
+      return postgreSQLContainer.getJdbcUrl();
+   }
+
+   static ConfigurableApplicationContext startApplication(String... properties) {
+      return startApplication(WebApplicationType.NONE, properties);
+   }
+
+   static ConfigurableApplicationContext startWebApplication(String... properties) {
+      return startApplication(WebApplicationType.SERVLET, properties);
+   }
+
+   private static ConfigurableApplicationContext startApplication(WebApplicationType webApplicationType,
+                                                                  String... properties) {
+      return new SpringApplicationBuilder(Main.class)
+            .web(webApplicationType)
+            .properties(
+                  "spring.datasource.url=" + url(),
+                  "spring.datasource.username=" + USERNAME,
+                  "spring.datasource.password=" + PASSWORD,
+                  "spring.jpa.show-sql=false",
+                  "logging.level.root=warn")
+            .properties(properties)
+            .run();
+   }
+
+   static DataSource dataSource() {
+      DataSource dataSource = DataSourceBuilder.create()
+            .url(url())
+            .username(USERNAME)
+            .password(PASSWORD)
+            .build();
+      Flyway.configure().dataSource(dataSource).load().migrate();
+      return dataSource;
+   }
+
+   static void seed(JdbcTemplate jdbcTemplate, int rows) {
+      Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class);
+      if (count > rows) {
+         jdbcTemplate.update("""
+               DELETE FROM customer
+               WHERE id IN (SELECT id FROM customer ORDER BY id OFFSET ?)
+               """, rows);
+         return;
+      }
+
+      CustomerDataGenerator generator = generator(jdbcTemplate);
+      generator.generate(generator.generatedCustomers() + rows - count);
+   }
+
+   static CustomerDataGenerator generator(JdbcTemplate jdbcTemplate) {
+      return new CustomerDataGenerator(jdbcTemplate, SEED, SEED_BATCH_SIZE);
+   }
+
+   static List<Customer> customers(int from, int to) {
+      String run = UUID.randomUUID().toString();
+      SplittableRandom random = new SplittableRandom(from);
+      return IntStream.range(from, to)
+            .mapToObj(i -> new Customer(
+                  "Customer " + i,
+                  "benchmark-" + run + "-" + i + "@amigoscode.com",
+                  random.nextInt(16, 99)))
+            .toList();
+   }
+}
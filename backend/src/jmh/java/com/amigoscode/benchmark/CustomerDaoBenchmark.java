@@ -0,0 +1,139 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import com.amigoscode.customer.CustomerSearchCriteria;
+import com.amigoscode.customer.CustomerSortField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDaoBenchmark {
+
+   @Param({"jdbc", "jpa", "list"})
+   public String dao;
+
+   @Param({"10000", "100000", "1000000"})
+   public int rows;
+
+   private ConfigurableApplicationContext context;
+   private CustomerDao customerDao;
+   private Long[] ids;
+   private String[] names;
+   private String[] emails;
+   private final String run = UUID.randomUUID().toString();
+   private final AtomicInteger inserted = new AtomicInteger();
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      context = BenchmarkSupport.startApplication();
+      customerDao = context.getBean(dao, CustomerDao.class);
+
+      if ("list".equals(dao)) {
+         customerDao.insertCustomers(BenchmarkSupport.customers(0, rows));
+      } else {
+         BenchmarkSupport.seed(context.getBean(JdbcTemplate.class), rows);
+      }
+
+      List<Customer> customers = new ArrayList<>(rows);
+      customerDao.streamAllCustomers(customers::add);
+      ids = customers.stream().map(Customer::getId).toArray(Long[]::new);
+      names = customers.stream().map(Customer::getName).toArray(String[]::new);
+      emails = customers.stream().map(Customer::getEmail).toArray(String[]::new);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public Optional<Customer> selectCustomerById() {
+      return customerDao.selectCustomerById(ids[randomIndex()]);
+   }
+
+   @Benchmark
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   public List<Customer> selectAllCustomers() {
+      return customerDao.selectAllCustomers();
+   }
+
+   @Benchmark
+   public boolean existsPersonWithEmail() {
+      return customerDao.existsPersonWithEmail(emails[randomIndex()]);
+   }
+
+   @Benchmark
+   public List<Customer> searchCustomersByName() {
+      // " 123" matches Customer 123, 1230-1239, ... a handful of rows. Every seeded name
+      // shares the "Customer" trigrams, so searching on those would be a table scan
+      String name = names[randomIndex()];
+      name = name.substring(name.lastIndexOf(' '));
+      return customerDao.searchCustomers(new CustomerSearchCriteria(
+            name, null, null, null, CustomerSortField.ID, false, null, 51));
+   }
+
+   @Benchmark
+   public List<Customer> searchCustomersByEmailPrefix() {
+      // drops the last digit and the domain, benchmark-<run>-123 matches 1230-1239 and so on
+      String email = emails[randomIndex()];
+      String prefix = email.substring(0, Math.max(email.lastIndexOf('@') - 1, 1));
+      return customerDao.searchCustomers(new CustomerSearchCriteria(
+            null, prefix, null, null, CustomerSortField.EMAIL, false, null, 51));
+   }
+
+   @Benchmark
+   public List<Customer> searchCustomersByAgeRange() {
+      int minAge = ThreadLocalRandom.current().nextInt(16, 90);
+      return customerDao.searchCustomers(new CustomerSearchCriteria(
+            null, null, minAge, minAge + 5, CustomerSortField.AGE, true, null, 51));
+   }
+
+   @Benchmark
+   public Optional<Long> insertCustomer() {
+      return customerDao.insertCustomer(new Customer(
+            "Benchmark",
+            "insert-" + run + "-" + inserted.incrementAndGet() + "@amigoscode.com",
+            30));
+   }
+
+   @Benchmark
+   public Optional<Customer> updateCustomer() {
+      int index = randomIndex();
+      return customerDao.updateCustomer(new Customer(
+            ids[index],
+            "Updated " + index,
+            emails[index],
+            ThreadLocalRandom.current().nextInt(16, 99)));
+   }
+
+   private int randomIndex() {
+      return ThreadLocalRandom.current().nextInt(ids.length);
+   }
+}
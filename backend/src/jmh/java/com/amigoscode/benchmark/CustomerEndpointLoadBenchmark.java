@@ -0,0 +1,92 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// more client threads than tomcat's default 200 platform request threads, so the
+// platform run queues on the pool while the virtual run does not; SampleTime
+// reports p99 next to the Throughput numbers
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class CustomerEndpointLoadBenchmark {
+
+   private static final int ROWS = 10_000;
+
+   @Param({"false", "true"})
+   public boolean virtualThreads;
+
+   private ConfigurableApplicationContext context;
+   private HttpClient httpClient;
+   private String baseUri;
+   private Long[] ids;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      context = BenchmarkSupport.startWebApplication(
+            "server.port=0",
+            "spring.threads.virtual.enabled=" + virtualThreads);
+      BenchmarkSupport.seed(context.getBean(JdbcTemplate.class), ROWS);
+
+      List<Customer> customers = new ArrayList<>(ROWS);
+      context.getBean("jdbc", CustomerDao.class).streamAllCustomers(customers::add);
+      ids = customers.stream().map(Customer::getId).toArray(Long[]::new);
+
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      baseUri = "http://localhost:" + port + "/api/v1/customers";
+      httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      httpClient.close();
+      context.close();
+   }
+
+   @Benchmark
+   public int getCustomer() throws IOException, InterruptedException {
+      Long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+      return get(baseUri + "/" + id);
+   }
+
+   @Benchmark
+   public int getCustomers() throws IOException, InterruptedException {
+      return get(baseUri + "?size=50");
+   }
+
+   private int get(String uri) throws IOException, InterruptedException {
+      HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).GET().build();
+      return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+   }
+}
@@ -0,0 +1,86 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerJsonSerializer;
+import com.amigoscode.customer.CustomerPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.github.javafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+// serialization CPU for a page of customers, with and without the gzip tomcat adds;
+// both serializers write the same bytes, whose size the setup prints once per trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJsonBenchmark {
+
+   @Param({"10000"})
+   public int customers;
+
+   @Param({"bean", "custom"})
+   public String serializer;
+
+   private ObjectWriter pageWriter;
+   private CustomerPage page;
+   private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1 << 20);
+
+   @Setup
+   public void setUp() throws IOException {
+      ObjectMapper objectMapper = new ObjectMapper();
+      if (serializer.equals("custom")) {
+         objectMapper.registerModule(new SimpleModule().addSerializer(Customer.class, new CustomerJsonSerializer()));
+      }
+      pageWriter = objectMapper.writerFor(CustomerPage.class);
+
+      // faker data compresses about as well as real names and emails, unlike numbered ones
+      Faker faker = new Faker(new Random(42));
+      List<Customer> list = IntStream.range(0, customers)
+            .mapToObj(i -> new Customer(i + 1L, faker.name().fullName(),
+                  faker.internet().safeEmailAddress(), faker.number().numberBetween(16, 99)))
+            .toList();
+      page = new CustomerPage(list, "aWQ6MTAwMDA");
+
+      int json = serialize();
+      int gzipped = serializeGzipped();
+      System.out.printf("%n%d customers: %d bytes of JSON, %d gzipped%n", customers, json, gzipped);
+   }
+
+   @Benchmark
+   public int serialize() throws IOException {
+      outputStream.reset();
+      pageWriter.writeValue(outputStream, page);
+      return outputStream.size();
+   }
+
+   @Benchmark
+   public int serializeGzipped() throws IOException {
+      outputStream.reset();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(outputStream, 8192)) {
+         pageWriter.writeValue(gzip, page);
+      }
+      return outputStream.size();
+   }
+}
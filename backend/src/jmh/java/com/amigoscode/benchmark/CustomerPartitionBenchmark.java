@@ -0,0 +1,121 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import com.amigoscode.customer.CustomerDataGenerator;
+import com.amigoscode.customer.CustomerSearchCriteria;
+import com.amigoscode.customer.CustomerSortField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// the point queries of CustomerDaoBenchmark on a table too big to hold in memory: ids are
+// sampled from the table and emails rebuilt from the generator's seed. Seeding 100M
+// customers takes over an hour, the table is kept for later runs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CustomerPartitionBenchmark {
+
+   private static final int SAMPLED_IDS = 100_000;
+
+   @Param({"jdbc", "jpa"})
+   public String dao;
+
+   @Param({"100000000"})
+   public int rows;
+
+   private ConfigurableApplicationContext context;
+   private CustomerDao customerDao;
+   private CustomerDataGenerator generator;
+   private long generated;
+   private Long[] ids;
+   private final String run = UUID.randomUUID().toString();
+   private final AtomicInteger inserted = new AtomicInteger();
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      // the partitioned table is only swapped in by the contract migration, which an empty
+      // customer table doesn't have to wait for a backfill for
+      context = BenchmarkSupport.startApplication(
+            "spring.flyway.locations=classpath:db/migration,classpath:db/contract");
+      customerDao = context.getBean(dao, CustomerDao.class);
+      JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+      BenchmarkSupport.seed(jdbcTemplate, rows);
+      generator = BenchmarkSupport.generator(jdbcTemplate);
+      generated = generator.generatedCustomers();
+
+      // SYSTEM samples whole pages, twice the share needed so the LIMIT is reached
+      double percent = Math.min(100, 200.0 * SAMPLED_IDS / rows);
+      List<Long> sample = jdbcTemplate.queryForList("""
+            SELECT id
+            FROM customer TABLESAMPLE SYSTEM (?)
+            LIMIT ?
+            """, Long.class, percent, SAMPLED_IDS);
+      ids = sample.toArray(Long[]::new);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public Optional<Customer> selectCustomerById() {
+      return customerDao.selectCustomerById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+   }
+
+   @Benchmark
+   public boolean existsPersonWithEmail() {
+      return customerDao.existsPersonWithEmail(randomEmail());
+   }
+
+   @Benchmark
+   public List<Customer> searchCustomersByEmailPrefix() {
+      // the prefix can't be pruned to a partition, so this reads every partition's index
+      String email = randomEmail();
+      String prefix = email.substring(0, Math.max(email.lastIndexOf('@') - 1, 1));
+      return customerDao.searchCustomers(new CustomerSearchCriteria(
+            null, prefix, null, null, CustomerSortField.EMAIL, false, null, 51));
+   }
+
+   @Benchmark
+   public Optional<Long> insertCustomer() {
+      return customerDao.insertCustomer(new Customer(
+            "Benchmark",
+            "insert-" + run + "-" + inserted.incrementAndGet() + "@amigoscode.com",
+            30));
+   }
+
+   @Benchmark
+   public Optional<Long> insertTakenEmail() {
+      return customerDao.insertCustomer(new Customer("Benchmark", randomEmail(), 30));
+   }
+
+   private String randomEmail() {
+      return generator.customer(ThreadLocalRandom.current().nextLong(generated)).getEmail();
+   }
+}
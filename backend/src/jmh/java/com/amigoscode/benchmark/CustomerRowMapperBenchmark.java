@@ -0,0 +1,61 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the difference between the two benchmarks is the mapping cost of CustomerRowMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerRowMapperBenchmark {
+
+   private static final String SQL = """
+         SELECT id, name, email, age
+         FROM customer
+         ORDER BY id
+         LIMIT ?
+         """;
+
+   @Param({"10000", "100000"})
+   public int rows;
+
+   private JdbcTemplate jdbcTemplate;
+   private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+
+   @Setup
+   public void setUp() {
+      jdbcTemplate = new JdbcTemplate(BenchmarkSupport.dataSource());
+      BenchmarkSupport.seed(jdbcTemplate, rows);
+   }
+
+   @Benchmark
+   public List<Customer> mapRows() {
+      return jdbcTemplate.query(SQL, customerRowMapper, rows);
+   }
+
+   @Benchmark
+   public void readRowsWithoutMapping(Blackhole blackhole) {
+      jdbcTemplate.query(SQL, rs -> {
+         blackhole.consume(rs);
+      }, rows);
+   }
+}
@@ -0,0 +1,110 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// more threads than connections, so the pool size shows up as waiting time in the
+// SampleTime percentiles; pick a single configuration with e.g. -p poolSize=20
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class DataSourceBenchmark {
+
+   private static final int ROWS = 100_000;
+   private static final int INSERT_BATCH_SIZE = 50;
+
+   @Param({"10", "20", "40"})
+   public int poolSize;
+
+   // 0 never prepares on the server, pgjdbc's default 5 prepares on the fifth execution
+   @Param({"0", "1", "5"})
+   public int prepareThreshold;
+
+   @Param({"false", "true"})
+   public boolean reWriteBatchedInserts;
+
+   private ConfigurableApplicationContext context;
+   private CustomerDao jdbcCustomerDao;
+   private CustomerDao jpaCustomerDao;
+   private Long[] ids;
+   private final String run = UUID.randomUUID().toString();
+   private final AtomicInteger inserted = new AtomicInteger();
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      context = BenchmarkSupport.startApplication(
+            "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+            "spring.datasource.hikari.minimum-idle=" + poolSize,
+            "spring.datasource.hikari.data-source-properties.prepareThreshold=" + prepareThreshold,
+            "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + reWriteBatchedInserts);
+      BenchmarkSupport.seed(context.getBean(JdbcTemplate.class), ROWS);
+      jdbcCustomerDao = context.getBean("jdbc", CustomerDao.class);
+      jpaCustomerDao = context.getBean("jpa", CustomerDao.class);
+
+      List<Customer> customers = new ArrayList<>(ROWS);
+      jdbcCustomerDao.streamAllCustomers(customers::add);
+      ids = customers.stream().map(Customer::getId).toArray(Long[]::new);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public Optional<Customer> selectCustomerById() {
+      return jdbcCustomerDao.selectCustomerById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+   }
+
+   @Benchmark
+   public Optional<Long> insertCustomer() {
+      return jdbcCustomerDao.insertCustomer(customer());
+   }
+
+   // hibernate sends these as one jdbc batch, which reWriteBatchedInserts turns into
+   // multi row INSERTs instead of one statement per row
+   @Benchmark
+   public Set<String> insertCustomersBatch() {
+      List<Customer> customers = new ArrayList<>(INSERT_BATCH_SIZE);
+      for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+         customers.add(customer());
+      }
+      return jpaCustomerDao.insertCustomers(customers);
+   }
+
+   private Customer customer() {
+      return new Customer(
+            "Benchmark",
+            "datasource-" + run + "-" + inserted.incrementAndGet() + "@amigoscode.com",
+            30);
+   }
+}
@@ -0,0 +1,19 @@
+package com.amigoscode;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// application/cbor next to JSON for service to service callers, built from the same
+// jackson setup so both carry the same properties; JSON stays the default for */*.
+// Servlet only, spring's jackson cbor encoder cannot write through webflux yet
+@Configuration
+public class CborConfig {
+
+   @Bean
+   public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+      return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+   }
+}
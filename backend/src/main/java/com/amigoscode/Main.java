@@ -1,17 +1,18 @@
 package com.amigoscode;
 
-import com.amigoscode.customer.Customer;
-import com.amigoscode.customer.CustomerRepository;
-import com.github.javafaker.Faker;
-import com.github.javafaker.Name;
-import org.springframework.boot.CommandLineRunner;
+import com.amigoscode.customer.CustomerDataGenerator;
+import com.amigoscode.customer.CustomerSeedProperties;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
-
-import java.util.Random;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class Main {
 
    public static void main(String[] args) {
@@ -20,23 +21,20 @@ public class Main {
 
    }
 
+   // closing the context before it is ready also skips the email filter load
    @Bean
-   CommandLineRunner runner(CustomerRepository customerRepository) {
+   @Profile("seed")
+   ApplicationRunner seeder(JdbcTemplate jdbcTemplate,
+                            CustomerSeedProperties properties,
+                            ConfigurableApplicationContext context) {
 
       return args -> {
 
-         var faker = new Faker();
-         Name name = faker.name();
-         Random random = new Random();
-         String firstname = name.firstName();
-         String lastname = name.lastName();
-         Customer customer =
-               new Customer(firstname + " " + lastname,
-                     firstname.toLowerCase() + "." + lastname.toLowerCase() + "@amigoscode.com",
-                     random.nextInt(16, 99));
+         new CustomerDataGenerator(jdbcTemplate, properties.seed(), properties.batchSize())
+               .generate(properties.customers());
 
-         customerRepository.save(customer);
+         context.close();
 
       };
    }
-}
\ No newline at end of file
+}
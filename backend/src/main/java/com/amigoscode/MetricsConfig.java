@@ -0,0 +1,17 @@
+package com.amigoscode;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+   // turns the class level @Timed on the daos and the service into customer.dao and
+   // customer.service timers tagged with the class and method that was called
+   @Bean
+   public TimedAspect timedAspect(MeterRegistry registry) {
+      return new TimedAspect(registry);
+   }
+}
@@ -0,0 +1,31 @@
+package com.amigoscode;
+
+import com.amigoscode.customer.CustomerSearchRequest;
+import com.amigoscode.migration.ExpandContractPostgreSQLDialect;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// reachability metadata process-aot cannot infer for a native image. The daos, the row
+// mapper and their proxies become generated bean definitions, Customer is a jpa managed
+// type, request and response bodies are bound from the controller signatures and boot
+// covers the classes logback-spring.xml names; what is left is listed here
+@Configuration
+// bound from query parameters rather than a body, so not seen with the other payloads
+@RegisterReflectionForBinding(CustomerSearchRequest.class)
+@ImportRuntimeHints(NativeConfig.DialectHints.class)
+public class NativeConfig {
+
+   // hibernate creates the dialect application.yaml names by reflection
+   static class DialectHints implements RuntimeHintsRegistrar {
+
+      @Override
+      public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+         hints.reflection().registerType(ExpandContractPostgreSQLDialect.class,
+               MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+      }
+   }
+}
@@ -0,0 +1,33 @@
+package com.amigoscode;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+   // tomcat is on the classpath for the servlet stack and boot prefers it for webflux too,
+   // netty is what serves the connections from a handful of event loop threads
+   @Bean
+   public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+      return new NettyReactiveWebServerFactory();
+   }
+
+   // DataSourceAutoConfiguration backs off as soon as there is an r2dbc ConnectionFactory,
+   // but flyway, jpa and the jdbc dao keep running on the blocking pool
+   @Bean
+   @ConfigurationProperties("spring.datasource.hikari")
+   public HikariDataSource dataSource(DataSourceProperties properties) {
+      return properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+   }
+}
@@ -0,0 +1,197 @@
+package com.amigoscode.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// every instance has its own cache, a customer changed through any of them, or any other
+// writer, is notified on customer_changed and evicted. Until CustomerNotifications listens,
+// and whenever it stops, reads go past the cache, which is emptied as listening starts
+@Repository("cached")
+@Timed(value = "customer.dao", extraTags = {"dao", "cached"})
+public class CachingCustomerDao implements CustomerDao, MeterBinder, CustomerNotificationHandler {
+
+   private static final String CHANNEL = "customer_changed";
+
+   private final CustomerDao delegate;
+   private final AsyncCache<Long, Customer> customersById;
+   private final CustomerEmailFilter emails;
+   private final Executor loader = Executors.newVirtualThreadPerTaskExecutor();
+   private volatile boolean listening;
+
+   public CachingCustomerDao(@Qualifier("jdbc") CustomerDao delegate,
+                             CustomerEmailFilter emails,
+                             CustomerCacheProperties properties) {
+      this.delegate = delegate;
+      this.emails = emails;
+      this.customersById = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.ttl())
+            .recordStats()
+            .buildAsync();
+   }
+
+   public CacheStats stats() {
+      return customersById.synchronous().stats();
+   }
+
+   @Override
+   public void bindTo(MeterRegistry registry) {
+      CaffeineCacheMetrics.monitor(registry, customersById, "customersById");
+   }
+
+   @Override
+   public String channel() {
+      return CHANNEL;
+   }
+
+   // a customer changed while nobody listened may still be cached
+   @Override
+   public void listening() {
+      customersById.synchronous().invalidateAll();
+      listening = true;
+   }
+
+   @Override
+   public void notified(String id) {
+      customersById.synchronous().invalidate(Long.valueOf(id));
+   }
+
+   @Override
+   public void stopped() {
+      listening = false;
+      customersById.synchronous().invalidateAll();
+   }
+
+   @Override
+   public List<Customer> selectAllCustomers() {
+      return delegate.selectAllCustomers();
+   }
+
+   @Override
+   public List<Customer> selectCustomers(Long afterId, int limit) {
+      return delegate.selectCustomers(afterId, limit);
+   }
+
+   @Override
+   public List<Customer> searchCustomers(CustomerSearchCriteria criteria) {
+      return delegate.searchCustomers(criteria);
+   }
+
+   @Override
+   public void streamAllCustomers(Consumer<Customer> consumer) {
+      delegate.streamAllCustomers(consumer);
+   }
+
+   // the load runs outside the cache's map lock, a synchronous loader would hold
+   // it for the whole query and pin the carrier of the virtual thread waiting on it.
+   // customers are mutable, so callers only ever see copies of the cached instance
+   @Override
+   public Optional<Customer> selectCustomerById(Long id) {
+      if (!listening) {
+         return delegate.selectCustomerById(id);
+      }
+      CompletableFuture<Customer> customer = customersById.get(id, (key, executor) ->
+            CompletableFuture.supplyAsync(() -> delegate.selectCustomerById(key).orElse(null), loader));
+      try {
+         return Optional.ofNullable(customer.join()).map(CachingCustomerDao::copyOf);
+      } catch (CompletionException e) {
+         if (e.getCause() instanceof RuntimeException cause) {
+            throw cause;
+         }
+         throw e;
+      }
+   }
+
+   @Override
+   public Optional<Long> insertCustomer(Customer customer) {
+      Optional<Long> id = delegate.insertCustomer(customer);
+      id.ifPresent(ignored -> emails.taken(customer.getEmail()));
+      return id;
+   }
+
+   @Override
+   public Set<String> insertCustomers(List<Customer> customers) {
+      Set<String> inserted = delegate.insertCustomers(customers);
+      inserted.forEach(emails::taken);
+      return inserted;
+   }
+
+   // most emails checked during sign up are not taken and the filter rules them out without
+   // a query. one taken a moment ago on another instance may still be missed, the insert's
+   // claim stays the real check and answers it with a conflict
+   @Override
+   public boolean existsPersonWithEmail(String email) {
+      return !emails.isFree(email) && delegate.existsPersonWithEmail(email);
+   }
+
+   @Override
+   public int deleteCustomerById(Long id) {
+      int deleted = delegate.deleteCustomerById(id);
+      customersById.synchronous().invalidate(id);
+      if (deleted > 0) {
+         emails.freed();
+      }
+      return deleted;
+   }
+
+   @Override
+   public int deleteCustomerById(Long id, long version) {
+      int deleted = delegate.deleteCustomerById(id, version);
+      customersById.synchronous().invalidate(id);
+      if (deleted > 0) {
+         emails.freed();
+      }
+      return deleted;
+   }
+
+   @Override
+   public boolean existsPersonWithId(Long id) {
+      return customersById.synchronous().getIfPresent(id) != null || delegate.existsPersonWithId(id);
+   }
+
+   @Override
+   public Optional<Customer> updateCustomer(Customer update) {
+      // a customer read recently still has its old email cached
+      Customer previous = customersById.synchronous().getIfPresent(update.getId());
+      Optional<Customer> updated;
+      try {
+         updated = delegate.updateCustomer(update);
+      } finally {
+         // a lost compare-and-set usually means the cached copy is stale
+         customersById.synchronous().invalidate(update.getId());
+      }
+      if (updated.isPresent() && update.getEmail() != null) {
+         emails.taken(update.getEmail());
+         if (previous == null || !previous.getEmail().equals(update.getEmail())) {
+            emails.freed();
+         }
+      }
+      return updated;
+   }
+
+   private static Customer copyOf(Customer customer) {
+      Customer copy = new Customer(
+            customer.getId(),
+            customer.getName(),
+            customer.getEmail(),
+            customer.getAge());
+      copy.setVersion(customer.getVersion());
+      return copy;
+   }
+}
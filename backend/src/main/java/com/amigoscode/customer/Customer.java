@@ -1,30 +1,34 @@
 package com.amigoscode.customer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.util.Objects;
 
+// emails are unique through customer_email, which V10's triggers keep in step
 @Entity
-@Table(name = "customer",
-      uniqueConstraints = {
-            @UniqueConstraint(name = "customer_email_unique", columnNames = "email")})
+@Table(name = "customer")
 public class Customer {
 
    @Id
-   @SequenceGenerator(name = "customer_id_seq", sequenceName = "customer_id_seq", allocationSize = 1)
+   @SequenceGenerator(name = "customer_id_seq", sequenceName = "customer_id_seq", allocationSize = 50)
    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_id_seq")
-   private Integer id;
+   private Long id;
    @Column(nullable = false)
    private String name;
    @Column(nullable = false)
    private String email;
    @Column(nullable = false)
    private Integer age;
+   // sent as the ETag rather than in the body, and left out of equals like the id's sequence
+   @Version
+   @JsonIgnore
+   private Long version;
 
    public Customer() {
    }
 
-   public Customer(Integer id, String name, String email, Integer age) {
+   public Customer(Long id, String name, String email, Integer age) {
       this.id = id;
       this.name = name;
       this.email = email;
@@ -37,11 +41,11 @@ public class Customer {
       this.age = age;
    }
 
-   public Integer getId() {
+   public Long getId() {
       return id;
    }
 
-   public void setId(Integer id) {
+   public void setId(Long id) {
       this.id = id;
    }
 
@@ -69,6 +73,21 @@ public class Customer {
       this.age = age;
    }
 
+   public Long getVersion() {
+      return version;
+   }
+
+   public void setVersion(Long version) {
+      this.version = version;
+   }
+
+   // whether the fields an update sends would change this customer
+   boolean isChangedBy(Customer update) {
+      return update.name != null && !update.name.equals(name)
+            || update.email != null && !update.email.equals(email)
+            || update.age != null && !update.age.equals(age);
+   }
+
    @Override
    public String toString() {
       return "Customer{" +
@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+public record CustomerBulkRegistrationResult(int index, String email, Status status, String message) {
+
+   public enum Status {
+      CREATED,
+      DUPLICATE,
+      INVALID
+   }
+}
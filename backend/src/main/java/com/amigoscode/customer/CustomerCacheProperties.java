@@ -0,0 +1,14 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "customer.cache")
+public record CustomerCacheProperties(@DefaultValue("10000") long maximumSize,
+                                      @DefaultValue("5m") Duration ttl,
+                                      @DefaultValue("0.01") double emailFalsePositiveRate,
+                                      @DefaultValue("64MB") DataSize emailFilterMaximumSize) {
+}
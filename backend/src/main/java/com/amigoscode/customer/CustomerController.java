@@ -1,27 +1,78 @@
 package com.amigoscode.customer;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/customers")
 public class CustomerController {
 
+   // clients may keep what they polled but have to revalidate it, which is mostly a 304
+   private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
    private final CustomerService customerService;
+   private final CustomerExporter customerExporter;
 
-   public CustomerController(CustomerService customerService) {
+   public CustomerController(CustomerService customerService, CustomerExporter customerExporter) {
       this.customerService = customerService;
+      this.customerExporter = customerExporter;
    }
 
    @GetMapping
-   public List<Customer> getCustomers() {
-      return customerService.getAllCustomers();
+   public ResponseEntity<CustomerPage> getCustomers(@RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    WebRequest webRequest) {
+      CustomerPage page = customerService.getCustomers(cursor, size);
+      String eTag = CustomerETag.of(page);
+      if (webRequest.checkNotModified(eTag)) {
+         return null;
+      }
+      return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag).body(page);
+   }
+
+   @GetMapping("search")
+   public CustomerPage searchCustomers(CustomerSearchRequest customerSearchRequest) {
+      return customerService.searchCustomers(customerSearchRequest);
+   }
+
+   @GetMapping("export")
+   public ResponseEntity<StreamingResponseBody> exportCustomers(
+         @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+      CustomerExportFormat exportFormat = CustomerExportFormat.from(format);
+      ContentDisposition contentDisposition = ContentDisposition.attachment()
+            .filename("customers." + exportFormat.getFileExtension())
+            .build();
+
+      return ResponseEntity.ok()
+            .contentType(exportFormat.getMediaType())
+            .headers(headers -> headers.setContentDisposition(contentDisposition))
+            .body(outputStream -> customerExporter.export(exportFormat, outputStream));
+   }
+
+   @GetMapping("email-available")
+   public boolean isEmailAvailable(@RequestParam("email") String email) {
+      return customerService.isEmailAvailable(email);
    }
 
    @GetMapping("{id}")
-   public Customer getCustomer(@PathVariable("id") Integer id) {
-      return customerService.getCustomer(id);
+   public ResponseEntity<Customer> getCustomer(@PathVariable("id") Long id, WebRequest webRequest) {
+      // served from the customer cache when warm, so a 304 costs no database read. A change
+      // on any instance evicts the customer from every instance's cache through its notification
+      Customer customer = customerService.getCustomer(id);
+      String eTag = CustomerETag.of(customer);
+      if (webRequest.checkNotModified(eTag)) {
+         return null;
+      }
+      return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag).body(customer);
    }
 
    @PostMapping
@@ -29,14 +80,23 @@ public class CustomerController {
       customerService.addCustomer(customerRegistrationRequest);
    }
 
+   @PostMapping("bulk")
+   public List<CustomerBulkRegistrationResult> registerCustomers(
+         @RequestBody List<CustomerRegistrationRequest> customerRegistrationRequests) {
+      return customerService.addCustomers(customerRegistrationRequests);
+   }
+
    @DeleteMapping("{id}")
-   public void deleteCustomer(@PathVariable("id") Integer id) {
-      customerService.deleteCustomer(id);
+   public void deleteCustomer(@PathVariable("id") Long id,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+      customerService.deleteCustomer(id, CustomerETag.version(ifMatch));
    }
 
    @PutMapping("{id}")
-   public void updateCustomer(@PathVariable("id") Integer id,
-                              @RequestBody CustomerUpdateRequest customerUpdateRequest) {
-      customerService.updateCustomer(id, customerUpdateRequest);
+   public ResponseEntity<Void> updateCustomer(@PathVariable("id") Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody CustomerUpdateRequest customerUpdateRequest) {
+      Customer updated = customerService.updateCustomer(id, customerUpdateRequest, CustomerETag.version(ifMatch));
+      return ResponseEntity.ok().eTag(CustomerETag.of(updated)).build();
    }
 }
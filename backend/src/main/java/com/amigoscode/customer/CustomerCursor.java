@@ -0,0 +1,60 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+final class CustomerCursor {
+
+   private static final String PREFIX = "id:";
+
+   private CustomerCursor() {
+   }
+
+   static String encode(Long lastId) {
+      return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+   }
+
+   // sorted by id this is the same cursor as above, otherwise the sort value follows the id
+   static String encode(CustomerSortField sortField, Customer last) {
+      if (sortField == CustomerSortField.ID) {
+         return encode(last.getId());
+      }
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(
+            (sortField.getColumn() + ":" + last.getId() + ":" + sortField.valueOf(last))
+                  .getBytes(StandardCharsets.UTF_8));
+   }
+
+   static Customer decode(CustomerSortField sortField, String cursor) {
+      if (sortField == CustomerSortField.ID) {
+         return sortField.position(decode(cursor), null);
+      }
+      try {
+         String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+         String prefix = sortField.getColumn() + ":";
+         String[] position = decoded.startsWith(prefix)
+               ? decoded.substring(prefix.length()).split(":", 2)
+               : new String[0];
+         if (position.length != 2) {
+            throw new IllegalArgumentException(decoded);
+         }
+         return sortField.position(Long.valueOf(position[0]), position[1]);
+      } catch (IllegalArgumentException e) {
+         throw new RequestValidationException("invalid cursor [%s]".formatted(cursor));
+      }
+   }
+
+   static Long decode(String cursor) {
+      try {
+         String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+         if (!decoded.startsWith(PREFIX)) {
+            throw new IllegalArgumentException(decoded);
+         }
+         return Long.valueOf(decoded.substring(PREFIX.length()));
+      } catch (IllegalArgumentException e) {
+         throw new RequestValidationException("invalid cursor [%s]".formatted(cursor));
+      }
+   }
+}
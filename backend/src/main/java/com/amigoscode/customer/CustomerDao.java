@@ -2,20 +2,48 @@ package com.amigoscode.customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
 
    List<Customer> selectAllCustomers();
 
-   Optional<Customer> selectCustomerById(Integer id);
+   List<Customer> selectCustomers(Long afterId, int limit);
 
-   void insertCustomer(Customer customer);
+   List<Customer> searchCustomers(CustomerSearchCriteria criteria);
+
+   default void streamAllCustomers(Consumer<Customer> consumer) {
+      int batchSize = 1000;
+      Long afterId = 0L;
+      List<Customer> batch;
+      do {
+         batch = selectCustomers(afterId, batchSize);
+         batch.forEach(consumer);
+         if (!batch.isEmpty()) {
+            afterId = batch.get(batch.size() - 1).getId();
+         }
+      } while (batch.size() == batchSize);
+   }
+
+   Optional<Customer> selectCustomerById(Long id);
+
+   // empty when the email is already taken
+   Optional<Long> insertCustomer(Customer customer);
+
+   Set<String> insertCustomers(List<Customer> customers);
 
    boolean existsPersonWithEmail(String email);
 
-   void deleteCustomerById(Integer id);
+   int deleteCustomerById(Long id);
+
+   // 0 when the customer is gone or has moved past the given version
+   int deleteCustomerById(Long id, long version);
 
-   boolean existsPersonWithId(Integer id);
+   boolean existsPersonWithId(Long id);
 
-   void updateCustomer(Customer update);
+   // an update carrying a version only applies at that version, otherwise it throws
+   // OptimisticLockingFailureException. One that would leave the customer as it is throws
+   // RequestValidationException; empty when the customer does not exist
+   Optional<Customer> updateCustomer(Customer update);
 }
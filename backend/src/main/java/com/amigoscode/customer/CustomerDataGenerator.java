@@ -0,0 +1,166 @@
+package com.amigoscode.customer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+// generated customer i is the same for the same seed whatever the batches, its index
+// keeps the email unique; rows go in with COPY, one transaction per batch
+public class CustomerDataGenerator {
+
+   private static final Logger log = LoggerFactory.getLogger(CustomerDataGenerator.class);
+
+   static final String EMAIL_DOMAIN = "seed.amigoscode.com";
+   private static final int COPY_BUFFER_SIZE = 64 * 1024;
+   // the sequence's increment, Customer's allocationSize
+   private static final int ID_BLOCK_SIZE = 50;
+
+   // nothing COPY's text format would need escaped
+   private static final String[] FIRST_NAMES = {
+         "Ada", "Alan", "Alice", "Amara", "Ben", "Carlos", "Chen", "Chloe", "Dan", "Dara",
+         "Elena", "Emeka", "Fatima", "Grace", "Hana", "Ivan", "Jamal", "Julia", "Kenji", "Lars",
+         "Leila", "Maria", "Mateo", "Mei", "Nadia", "Noah", "Olga", "Omar", "Priya", "Quinn",
+         "Rosa", "Sam", "Sofia", "Tariq", "Uma", "Victor", "Wei", "Yara", "Yusuf", "Zoe"
+   };
+   private static final String[] LAST_NAMES = {
+         "Adeyemi", "Andersen", "Bianchi", "Brown", "Cohen", "Costa", "Dubois", "Eriksson",
+         "Fernandez", "Garcia", "Gupta", "Hansen", "Ibrahim", "Ivanova", "Jensen", "Kim",
+         "Kowalski", "Lee", "Lopez", "Mensah", "Muller", "Nakamura", "Nguyen", "Novak",
+         "Okafor", "Olsen", "Patel", "Petrov", "Rossi", "Santos", "Schmidt", "Silva",
+         "Smith", "Tanaka", "Torres", "Walker", "Wang", "Williams", "Yilmaz", "Zhang"
+   };
+
+   private final JdbcTemplate jdbcTemplate;
+   private final long seed;
+   private final int batchSize;
+
+   public CustomerDataGenerator(JdbcTemplate jdbcTemplate, long seed, int batchSize) {
+      this.jdbcTemplate = jdbcTemplate;
+      this.seed = seed;
+      this.batchSize = batchSize;
+   }
+
+   public Customer customer(long index) {
+      SplittableRandom random = new SplittableRandom(seed + index);
+      String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+      String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+      return new Customer(
+            firstName + " " + lastName,
+            firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + index + "@" + EMAIL_DOMAIN,
+            random.nextInt(16, 99));
+   }
+
+   public long generatedCustomers() {
+      return jdbcTemplate.queryForObject("SELECT generated FROM customer_seed", Long.class);
+   }
+
+   // tops the generated customers up to the given number, returns how many were inserted
+   public long generate(long customers) {
+      long inserted = 0;
+      long batch;
+      do {
+         batch = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> insert(connection, customers));
+         inserted += batch;
+      } while (batch > 0);
+      return inserted;
+   }
+
+   // the progress row is locked for the batch, so runs on several instances take turns.
+   // customer_email is filled by the insert trigger, which COPY fires as well
+   private long insert(Connection connection, long customers) throws SQLException {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+         long from = lockGenerated(connection);
+         long to = Math.min(from + batchSize, customers);
+         if (from >= to) {
+            connection.commit();
+            return 0;
+         }
+         copy(connection, reserveIds(connection, to - from), from, to);
+         try (PreparedStatement statement = connection.prepareStatement("UPDATE customer_seed SET generated = ?")) {
+            statement.setLong(1, to);
+            statement.executeUpdate();
+         }
+         connection.commit();
+         log.info("generated customers {} to {} of {}", from, to, customers);
+         return to - from;
+      } catch (SQLException | RuntimeException e) {
+         connection.rollback();
+         throw e;
+      } finally {
+         connection.setAutoCommit(autoCommit);
+      }
+   }
+
+   private static long lockGenerated(Connection connection) throws SQLException {
+      try (PreparedStatement statement = connection.prepareStatement("SELECT generated FROM customer_seed FOR UPDATE");
+           ResultSet resultSet = statement.executeQuery()) {
+         resultSet.next();
+         return resultSet.getLong(1);
+      }
+   }
+
+   // ids come from the sequence the way hibernate's pooled ids do: every nextval owns the
+   // block of ID_BLOCK_SIZE ids up to it, so the jdbc inserts, hibernate and other seeding
+   // instances, which take their own nextvals meanwhile, never get one of these
+   private static long[] reserveIds(Connection connection, long count) throws SQLException {
+      long[] ids = new long[Math.toIntExact(count)];
+      int reserved = 0;
+      try (PreparedStatement statement = connection.prepareStatement(
+            "SELECT nextval('customer_id_seq') FROM generate_series(1, ?)")) {
+         while (reserved < ids.length) {
+            statement.setLong(1, (ids.length - reserved + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+               while (resultSet.next() && reserved < ids.length) {
+                  long last = resultSet.getLong(1);
+                  for (long id = Math.max(last - ID_BLOCK_SIZE + 1, 1); id <= last && reserved < ids.length; id++) {
+                     ids[reserved++] = id;
+                  }
+               }
+            }
+         }
+      }
+      return ids;
+   }
+
+   private void copy(Connection connection, long[] ids, long from, long to) throws SQLException {
+      CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+            .copyIn("COPY customer (id, name, email, age) FROM STDIN");
+      try {
+         StringBuilder rows = new StringBuilder(COPY_BUFFER_SIZE + 256);
+         for (long index = from; index < to; index++) {
+            Customer customer = customer(index);
+            rows.append(ids[(int) (index - from)]).append('\t')
+                  .append(customer.getName()).append('\t')
+                  .append(customer.getEmail()).append('\t')
+                  .append(customer.getAge()).append('\n');
+            if (rows.length() >= COPY_BUFFER_SIZE) {
+               write(copyIn, rows);
+            }
+         }
+         write(copyIn, rows);
+         copyIn.endCopy();
+      } finally {
+         if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+         }
+      }
+   }
+
+   private static void write(CopyIn copyIn, StringBuilder rows) throws SQLException {
+      byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      rows.setLength(0);
+   }
+}
@@ -0,0 +1,43 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.PreconditionFailed;
+
+import java.util.Objects;
+
+final class CustomerETag {
+
+   private CustomerETag() {
+   }
+
+   static String of(Customer customer) {
+      return "\"" + customer.getVersion() + "\"";
+   }
+
+   // a page changes when any of its rows does or when rows are added or removed,
+   // but the tag says nothing about the bytes, so it is weak
+   static String of(CustomerPage page) {
+      long hash = Objects.hashCode(page.nextCursor());
+      for (Customer customer : page.customers()) {
+         hash = 31 * hash + customer.getId();
+         hash = 31 * hash + customer.getVersion();
+      }
+      return "W/\"" + Long.toHexString(hash) + "\"";
+   }
+
+   // null for a missing If-Match or *, which only requires the customer to exist
+   static Long version(String ifMatch) {
+      if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+         return null;
+      }
+      String tag = ifMatch.trim();
+      try {
+         if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException(tag);
+         }
+         return Long.valueOf(tag.substring(1, tag.length() - 1));
+      } catch (IllegalArgumentException e) {
+         // weak tags and lists never match with the strong comparison If-Match requires
+         throw new PreconditionFailed("If-Match [%s] does not match any customer version".formatted(ifMatch));
+      }
+   }
+}
@@ -0,0 +1,179 @@
+package com.amigoscode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// the Bloom filter CachingCustomerDao checks emails against. Every writer, other instances,
+// COPY and migrations included, takes its email through customer, whose trigger notifies
+// it, so the filter is only used while CustomerNotifications listens to those notifications.
+// A miss is then only stale while a notification is on its way
+@Component
+public class CustomerEmailFilter implements CustomerNotificationHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(CustomerEmailFilter.class);
+
+   private static final String CHANNEL = "customer_email";
+   private static final int LOAD_BATCH_SIZE = 10_000;
+   private static final long MINIMUM_EMAILS = 1024;
+   private static final long MINIMUM_STALE_EMAILS = 1000;
+
+   // the pool's, a load reads in short batches rather than holding a connection throughout
+   private final JdbcTemplate jdbcTemplate;
+   private final double falsePositiveRate;
+   private final long maximumBits;
+   private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+   private final AtomicBoolean loading = new AtomicBoolean();
+   private final AtomicLong addedEmails = new AtomicLong();
+   private final AtomicLong freedEmails = new AtomicLong();
+   // changes whenever listening starts or stops, a load started before it is not used
+   private long session;
+   // null until listening and loaded, every email check goes to the database until then
+   private volatile EmailBloomFilter emails;
+   // the filter being loaded, notified emails go into it as well so none are missed
+   private volatile EmailBloomFilter nextEmails;
+   private volatile long capacity;
+   private volatile long loadedEmails;
+
+   public CustomerEmailFilter(JdbcTemplate jdbcTemplate, CustomerCacheProperties properties) {
+      this.jdbcTemplate = jdbcTemplate;
+      this.falsePositiveRate = properties.emailFalsePositiveRate();
+      this.maximumBits = properties.emailFilterMaximumSize().toBytes() * 8;
+   }
+
+   @Override
+   public String channel() {
+      return CHANNEL;
+   }
+
+   // emails taken from here on are notified, the load reads the ones before
+   @Override
+   public void listening() {
+      reload(startListening());
+   }
+
+   @Override
+   public void notified(String email) {
+      taken(email);
+      // past the emails it was sized for, the filter is rebuilt bigger
+      if (emails != null && addedEmails.incrementAndGet() > capacity - loadedEmails) {
+         reload(currentSession());
+      }
+   }
+
+   @Override
+   public void stopped() {
+      stopListening();
+   }
+
+   // true only when the email is certainly not taken
+   boolean isFree(String email) {
+      EmailBloomFilter filter = emails;
+      return filter != null && !filter.mightContain(email);
+   }
+
+   // writes through this instance don't wait for their own notification
+   void taken(String email) {
+      // nextEmails first: a load that is done by the time emails is read has set it already
+      EmailBloomFilter next = nextEmails;
+      EmailBloomFilter filter = emails;
+      if (next != null) {
+         next.put(email);
+      }
+      if (filter != null) {
+         filter.put(email);
+      }
+   }
+
+   // freed emails cannot be taken out again, once a tenth of the filter is stale it is
+   // rebuilt, but not over every few deletes while it is small
+   void freed() {
+      if (emails != null && freedEmails.incrementAndGet() > Math.max(loadedEmails / 10, MINIMUM_STALE_EMAILS)) {
+         reload(currentSession());
+      }
+   }
+
+   private void reload(long session) {
+      if (!loading.compareAndSet(false, true)) {
+         return;
+      }
+      CompletableFuture.runAsync(() -> load(session), executor).whenComplete((ignored, e) -> {
+         loading.set(false);
+         if (e != null) {
+            log.warn("could not load customer emails, email checks keep using the previous filter", e);
+         }
+      });
+   }
+
+   // sized from a count taken first, with room for as many emails again before the next load
+   void load(long session) {
+      try {
+         Long customers = jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class);
+         long capacity = Math.max(2 * customers, MINIMUM_EMAILS);
+         EmailBloomFilter filter = new EmailBloomFilter(capacity, falsePositiveRate, maximumBits);
+         nextEmails = filter;
+         addedEmails.set(0);
+         freedEmails.set(0);
+
+         // by id, so each batch is one short index scan
+         long loaded = 0;
+         long afterId = 0;
+         while (true) {
+            long[] lastId = {afterId};
+            int rows = jdbcTemplate.query("""
+                  SELECT id, email
+                  FROM customer
+                  WHERE id > ?
+                  ORDER BY id
+                  LIMIT ?
+                  """, resultSet -> {
+               int batch = 0;
+               while (resultSet.next()) {
+                  lastId[0] = resultSet.getLong(1);
+                  filter.put(resultSet.getString(2));
+                  batch++;
+               }
+               return batch;
+            }, afterId, LOAD_BATCH_SIZE);
+            loaded += rows;
+            afterId = lastId[0];
+            if (rows < LOAD_BATCH_SIZE) {
+               break;
+            }
+         }
+         publish(session, filter, capacity, loaded);
+      } finally {
+         nextEmails = null;
+      }
+   }
+
+   synchronized long startListening() {
+      return ++session;
+   }
+
+   private synchronized long currentSession() {
+      return session;
+   }
+
+   private synchronized void stopListening() {
+      session++;
+      emails = null;
+   }
+
+   private synchronized void publish(long session, EmailBloomFilter filter, long capacity, long loaded) {
+      if (session != this.session) {
+         return;
+      }
+      this.capacity = capacity;
+      this.loadedEmails = loaded;
+      this.emails = filter;
+      log.info("loaded {} customer emails", loaded);
+   }
+}
@@ -0,0 +1,35 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.springframework.http.MediaType;
+
+public enum CustomerExportFormat {
+
+   NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+   CSV(new MediaType("text", "csv"), "csv");
+
+   private final MediaType mediaType;
+   private final String fileExtension;
+
+   CustomerExportFormat(MediaType mediaType, String fileExtension) {
+      this.mediaType = mediaType;
+      this.fileExtension = fileExtension;
+   }
+
+   public MediaType getMediaType() {
+      return mediaType;
+   }
+
+   public String getFileExtension() {
+      return fileExtension;
+   }
+
+   public static CustomerExportFormat from(String format) {
+      for (CustomerExportFormat exportFormat : values()) {
+         if (exportFormat.fileExtension.equalsIgnoreCase(format)) {
+            return exportFormat;
+         }
+      }
+      throw new RequestValidationException("unsupported export format [%s]".formatted(format));
+   }
+}
@@ -0,0 +1,89 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Component
+public class CustomerExporter {
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final CustomerService customerService;
+   private final ObjectWriter customerWriter;
+   private final ObjectMapper objectMapper;
+
+   public CustomerExporter(CustomerService customerService, ObjectMapper objectMapper) {
+      this.customerService = customerService;
+      this.objectMapper = objectMapper;
+      this.customerWriter = objectMapper.writerFor(Customer.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+   }
+
+   public void export(CustomerExportFormat format, OutputStream outputStream) throws IOException {
+      try {
+         switch (format) {
+            case NDJSON -> exportNdjson(outputStream);
+            case CSV -> exportCsv(outputStream);
+         }
+      } catch (UncheckedIOException e) {
+         throw e.getCause();
+      }
+   }
+
+   private void exportNdjson(OutputStream outputStream) throws IOException {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+         generator.setRootValueSeparator(null);
+         customerService.exportCustomers(customer -> {
+            try {
+               customerWriter.writeValue(generator, customer);
+               generator.writeRaw('\n');
+            } catch (IOException e) {
+               throw new UncheckedIOException(e);
+            }
+         });
+      }
+   }
+
+   private void exportCsv(OutputStream outputStream) throws IOException {
+      try (Writer writer = new BufferedWriter(
+            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+         writer.write("id,name,email,age\n");
+         customerService.exportCustomers(customer -> {
+            try {
+               writer.write(String.valueOf(customer.getId()));
+               writer.write(',');
+               writeCsvField(writer, customer.getName());
+               writer.write(',');
+               writeCsvField(writer, customer.getEmail());
+               writer.write(',');
+               writer.write(String.valueOf(customer.getAge()));
+               writer.write('\n');
+            } catch (IOException e) {
+               throw new UncheckedIOException(e);
+            }
+         });
+      }
+   }
+
+   private static void writeCsvField(Writer writer, String value) throws IOException {
+      if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+            && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+         writer.write(value);
+         return;
+      }
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+   }
+}
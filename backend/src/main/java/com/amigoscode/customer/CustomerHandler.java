@@ -0,0 +1,76 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Component
+@Profile("reactive")
+public class CustomerHandler {
+
+   private final ReactiveCustomerService customerService;
+
+   public CustomerHandler(ReactiveCustomerService customerService) {
+      this.customerService = customerService;
+   }
+
+   public Mono<ServerResponse> getCustomers(ServerRequest request) {
+      return Mono.defer(() -> customerService.getCustomers(
+                  request.queryParam("cursor").orElse(null),
+                  request.queryParam("size").map(size -> parse("size", size, Integer::valueOf)).orElse(null)))
+            .flatMap(page -> ServerResponse.ok().bodyValue(page));
+   }
+
+   // the flux is written as the client reads it, so demand from the connection
+   // travels back to the database cursor instead of buffering the whole table
+   public Mono<ServerResponse> streamCustomers(ServerRequest request) {
+      return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(customerService.streamCustomers(), Customer.class);
+   }
+
+   public Mono<ServerResponse> getCustomer(ServerRequest request) {
+      return Mono.defer(() -> customerService.getCustomer(id(request)))
+            .flatMap(customer -> ServerResponse.ok().bodyValue(customer));
+   }
+
+   public Mono<ServerResponse> registerCustomer(ServerRequest request) {
+      return request.bodyToMono(CustomerRegistrationRequest.class)
+            .flatMap(customerService::addCustomer)
+            .then(ServerResponse.ok().build());
+   }
+
+   public Mono<ServerResponse> deleteCustomer(ServerRequest request) {
+      return Mono.defer(() -> customerService.deleteCustomer(id(request)))
+            .then(ServerResponse.ok().build());
+   }
+
+   public Mono<ServerResponse> updateCustomer(ServerRequest request) {
+      return Mono.defer(() -> {
+               Long id = id(request);
+               Long expectedVersion = CustomerETag.version(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+               return request.bodyToMono(CustomerUpdateRequest.class)
+                     .flatMap(updateRequest -> customerService.updateCustomer(id, updateRequest, expectedVersion));
+            })
+            .then(ServerResponse.ok().build());
+   }
+
+   private static Long id(ServerRequest request) {
+      return parse("id", request.pathVariable("id"), Long::valueOf);
+   }
+
+   private static <T> T parse(String name, String value, Function<String, T> parser) {
+      try {
+         return parser.apply(value);
+      } catch (NumberFormatException e) {
+         throw new RequestValidationException("invalid %s [%s]".formatted(name, value));
+      }
+   }
+}
@@ -0,0 +1,164 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Repository("list")
+@Timed(value = "customer.dao", extraTags = {"dao", "list"})
+public class CustomerInMemoryDataAccessService implements CustomerDao {
+
+   private final AtomicLong ids = new AtomicLong();
+   private final ConcurrentHashMap<Long, Customer> customersById = new ConcurrentHashMap<>();
+   private final ConcurrentHashMap<String, Long> idsByEmail = new ConcurrentHashMap<>();
+   // ordered view of the ids, only needed for keyset pagination
+   private final ConcurrentSkipListSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+   @Override
+   public List<Customer> selectAllCustomers() {
+      return selectCustomers(0L, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public List<Customer> selectCustomers(Long afterId, int limit) {
+      List<Customer> customers = new ArrayList<>(Math.min(limit, 1024));
+      for (Long id : orderedIds.tailSet(afterId, false)) {
+         if (customers.size() == limit) {
+            break;
+         }
+         Customer customer = customersById.get(id);
+         if (customer != null) {
+            customers.add(copyOf(customer));
+         }
+      }
+      return customers;
+   }
+
+   @Override
+   public List<Customer> searchCustomers(CustomerSearchCriteria criteria) {
+      return customersById.values().stream()
+            .filter(criteria::matches)
+            .sorted(criteria.order())
+            .limit(criteria.limit())
+            .map(CustomerInMemoryDataAccessService::copyOf)
+            .toList();
+   }
+
+   @Override
+   public Optional<Customer> selectCustomerById(Long id) {
+      return Optional.ofNullable(customersById.get(id)).map(CustomerInMemoryDataAccessService::copyOf);
+   }
+
+   @Override
+   public Optional<Long> insertCustomer(Customer customer) {
+      return tryInsert(customer);
+   }
+
+   @Override
+   public Set<String> insertCustomers(List<Customer> customers) {
+      Set<String> inserted = new HashSet<>();
+      for (Customer customer : customers) {
+         if (tryInsert(customer).isPresent()) {
+            inserted.add(customer.getEmail());
+         }
+      }
+      return inserted;
+   }
+
+   @Override
+   public boolean existsPersonWithEmail(String email) {
+      return idsByEmail.containsKey(email);
+   }
+
+   @Override
+   public int deleteCustomerById(Long id) {
+      Customer removed = customersById.remove(id);
+      if (removed == null) {
+         return 0;
+      }
+      orderedIds.remove(id);
+      idsByEmail.remove(removed.getEmail(), id);
+      return 1;
+   }
+
+   @Override
+   public int deleteCustomerById(Long id, long version) {
+      Customer current = customersById.get(id);
+      if (current == null || current.getVersion() != version
+            || !customersById.remove(id, current)) {
+         return 0;
+      }
+      orderedIds.remove(id);
+      idsByEmail.remove(current.getEmail(), id);
+      return 1;
+   }
+
+   @Override
+   public boolean existsPersonWithId(Long id) {
+      return customersById.containsKey(id);
+   }
+
+   // computeIfPresent holds the lock for this id only, so updates to different
+   // customers never contend and a concurrent delete cannot interleave
+   @Override
+   public Optional<Customer> updateCustomer(Customer update) {
+      Customer updated = customersById.computeIfPresent(update.getId(), (id, current) -> {
+         if (update.getVersion() != null && !update.getVersion().equals(current.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                  "customer with id [%s] is no longer at version [%s]".formatted(id, update.getVersion()));
+         }
+         if (!current.isChangedBy(update)) {
+            throw new RequestValidationException("no data changes found");
+         }
+         String email = update.getEmail() != null ? update.getEmail() : current.getEmail();
+         if (!email.equals(current.getEmail())) {
+            Long owner = idsByEmail.putIfAbsent(email, id);
+            if (owner != null && !owner.equals(id)) {
+               throw new DuplicateKeyException("customer_email_unique");
+            }
+            idsByEmail.remove(current.getEmail(), id);
+         }
+         Customer next = new Customer(
+               id,
+               update.getName() != null ? update.getName() : current.getName(),
+               email,
+               update.getAge() != null ? update.getAge() : current.getAge());
+         next.setVersion(current.getVersion() + 1);
+         return next;
+      });
+      return Optional.ofNullable(updated).map(CustomerInMemoryDataAccessService::copyOf);
+   }
+
+   private Optional<Long> tryInsert(Customer customer) {
+      Long id = ids.incrementAndGet();
+      if (idsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+         return Optional.empty();
+      }
+      Customer inserted = new Customer(id, customer.getName(), customer.getEmail(), customer.getAge());
+      inserted.setVersion(0L);
+      customersById.put(id, inserted);
+      orderedIds.add(id);
+      return Optional.of(id);
+   }
+
+   private static Customer copyOf(Customer customer) {
+      Customer copy = new Customer(
+            customer.getId(),
+            customer.getName(),
+            customer.getEmail(),
+            customer.getAge());
+      copy.setVersion(customer.getVersion());
+      return copy;
+   }
+}
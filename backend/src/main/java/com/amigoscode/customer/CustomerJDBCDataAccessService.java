@@ -1,14 +1,31 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.exception.RequestValidationException;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jdbc")
+@Timed(value = "customer.dao", extraTags = {"dao", "jdbc"})
 public class CustomerJDBCDataAccessService implements CustomerDao{
 
+   private static final Logger log = LoggerFactory.getLogger(CustomerJDBCDataAccessService.class);
+   private static final int STREAM_FETCH_SIZE = 1000;
+   private static final int INSERT_BATCH_SIZE = 1000;
+
    private final JdbcTemplate jdbcTemplate;
    private final CustomerRowMapper customerRowMapper;
 
@@ -20,7 +37,7 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
    @Override
    public List<Customer> selectAllCustomers() {
       var sql = """
-            SELECT id, name, email, age
+            SELECT id, name, email, age, version
             FROM customer
             """;
 
@@ -28,9 +45,97 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
    }
 
    @Override
-   public Optional<Customer> selectCustomerById(Integer id) {
+   public List<Customer> selectCustomers(Long afterId, int limit) {
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+      return jdbcTemplate.query(sql, customerRowMapper, afterId, limit);
+   }
+
+   // the email prefix, age and sort columns all have B-tree indexes and pages are keyset
+   // based, so a page reads about as many index entries as it returns
+   @Override
+   public List<Customer> searchCustomers(CustomerSearchCriteria criteria) {
+      List<String> conditions = new ArrayList<>(5);
+      List<Object> args = new ArrayList<>(7);
+
+      // the keyset condition and the LIMIT sit on the same query as the trigram match, so
+      // a common fragment can be served by walking the sort index and stopping at the limit
+      if (criteria.name() != null) {
+         conditions.add("name ILIKE ?");
+         args.add(criteria.namePattern());
+      }
+
+      if (criteria.emailPrefix() != null) {
+         conditions.add("email LIKE ?");
+         args.add(criteria.emailPattern());
+      }
+
+      if (criteria.minAge() != null) {
+         conditions.add("age >= ?");
+         args.add(criteria.minAge());
+      }
+
+      if (criteria.maxAge() != null) {
+         conditions.add("age <= ?");
+         args.add(criteria.maxAge());
+      }
+
+      String column = criteria.sortField().getColumn();
+      String direction = criteria.descending() ? "DESC" : "ASC";
+      if (criteria.after() != null) {
+         String comparison = criteria.descending() ? "<" : ">";
+         if (criteria.sortField() == CustomerSortField.ID) {
+            conditions.add("id %s ?".formatted(comparison));
+         } else {
+            conditions.add("(%s, id) %s (?, ?)".formatted(column, comparison));
+            args.add(criteria.sortField().valueOf(criteria.after()));
+         }
+         args.add(criteria.after().getId());
+      }
+
+      args.add(criteria.limit());
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            %s
+            ORDER BY %s %s, id %s
+            LIMIT ?
+            """.formatted(
+            conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions),
+            column, direction, direction);
+
+      return jdbcTemplate.query(sql, customerRowMapper, args.toArray());
+   }
+
+   // postgres only honours the fetch size, and so uses a server side cursor,
+   // when autocommit is off, hence the read only transaction
+   @Override
+   @Transactional(readOnly = true)
+   public void streamAllCustomers(Consumer<Customer> consumer) {
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            """;
+
+      try (Stream<Customer> customers = jdbcTemplate.queryForStream(connection -> {
+         PreparedStatement statement = connection.prepareStatement(sql);
+         statement.setFetchSize(STREAM_FETCH_SIZE);
+         return statement;
+      }, customerRowMapper)) {
+         customers.forEach(consumer);
+      }
+   }
+
+   @Override
+   public Optional<Customer> selectCustomerById(Long id) {
       var sql = """
-            SELECT id, name, email, age
+            SELECT id, name, email, age, version
             FROM customer
             WHERE id = ?
             """;
@@ -38,76 +143,232 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
       return jdbcTemplate.query(sql, customerRowMapper, id).stream().findFirst();
    }
 
+   // the partitioned customer can't have a unique email, so the email is claimed in
+   // customer_email first and the customer only inserted when that claim went through.
+   // Until the contract migration customer still has its unique email, which the
+   // ON CONFLICT DO NOTHING covers for owners the backfill hasn't claimed for yet
    @Override
-   public void insertCustomer(Customer customer) {
+   public Optional<Long> insertCustomer(Customer customer) {
       var sql = """
-            INSERT INTO customer(name, email, age)
-            VALUES(?, ?, ?)
+            WITH claimed AS (
+               INSERT INTO customer_email(email, customer_id)
+               VALUES(?, nextval('customer_id_seq'))
+               ON CONFLICT (email) DO NOTHING
+               RETURNING email, customer_id
+            )
+            INSERT INTO customer(id, name, email, age)
+            SELECT customer_id, ?, email, ?
+            FROM claimed
+            ON CONFLICT DO NOTHING
+            RETURNING id
             """;
 
-      int result = jdbcTemplate.update(sql, customer.getName(),
-                           customer.getEmail(), customer.getAge());
+      Optional<Long> id = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("id"),
+            customer.getEmail(), customer.getName(), customer.getAge()).stream().findFirst();
+      log.atDebug()
+            .addKeyValue("customerId", id.orElse(null))
+            .addKeyValue("rows", id.isPresent() ? 1 : 0)
+            .log("customer inserted");
+      return id;
+   }
 
-      System.out.println("jdbcTemplate update = " + result);
+   // each batch is a single set based statement: the first of any duplicates inside the
+   // batch is kept, ON CONFLICT skips taken emails and RETURNING reports what was inserted
+   @Override
+   public Set<String> insertCustomers(List<Customer> customers) {
+      var sql = """
+            WITH batch AS (
+               SELECT DISTINCT ON (email) name, email, age
+               FROM unnest(?::text[], ?::text[], ?::int[]) WITH ORDINALITY AS b(name, email, age, position)
+               ORDER BY email, position
+            ),
+            claimed AS (
+               INSERT INTO customer_email(email, customer_id)
+               SELECT email, nextval('customer_id_seq')
+               FROM batch
+               ON CONFLICT (email) DO NOTHING
+               RETURNING email, customer_id
+            )
+            INSERT INTO customer(id, name, email, age)
+            SELECT customer_id, name, email, age
+            FROM claimed
+            JOIN batch USING (email)
+            ON CONFLICT DO NOTHING
+            RETURNING email
+            """;
 
+      Set<String> inserted = new HashSet<>(customers.size());
+      for (int from = 0; from < customers.size(); from += INSERT_BATCH_SIZE) {
+         List<Customer> batch = customers.subList(from, Math.min(from + INSERT_BATCH_SIZE, customers.size()));
+         inserted.addAll(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text",
+                  batch.stream().map(Customer::getName).toArray()));
+            statement.setArray(2, connection.createArrayOf("text",
+                  batch.stream().map(Customer::getEmail).toArray()));
+            statement.setArray(3, connection.createArrayOf("int4",
+                  batch.stream().map(Customer::getAge).toArray()));
+            return statement;
+         }, (rs, rowNum) -> rs.getString("email")));
+      }
+      return inserted;
    }
 
+   // customer_email is only complete once the customer_partitioned backfill is, customer
+   // has every email in either schema
    @Override
    public boolean existsPersonWithEmail(String email) {
       var sql = """
-            SELECT count(id)
-            FROM customer
-            WHERE email = ?
+            SELECT EXISTS (
+               SELECT 1
+               FROM customer
+               WHERE email = ?
+            )
             """;
 
-      Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
-      return count != null && count > 0;
+      return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, email));
    }
 
    @Override
-   public void deleteCustomerById(Integer id) {
+   public int deleteCustomerById(Long id) {
       var sql = """
             DELETE
             FROM customer
             WHERE id = ?
             """;
 
-      Integer result = jdbcTemplate.update(sql, id);
-      System.out.println("deletedCustomerById, result: " + result);
+      int result = jdbcTemplate.update(sql, id);
+      log.atDebug()
+            .addKeyValue("customerId", id)
+            .addKeyValue("rows", result)
+            .log("customer deleted");
+      return result;
    }
 
    @Override
-   public boolean existsPersonWithId(Integer id) {
+   public int deleteCustomerById(Long id, long version) {
       var sql = """
-            SELECT count(id)
+            DELETE
             FROM customer
-            WHERE id = ?
+            WHERE id = ? AND version = ?
             """;
 
-      Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-      return count != null && count > 0;
+      int result = jdbcTemplate.update(sql, id, version);
+      log.atDebug()
+            .addKeyValue("customerId", id)
+            .addKeyValue("version", version)
+            .addKeyValue("rows", result)
+            .log("customer deleted");
+      return result;
    }
 
    @Override
-   public void updateCustomer(Customer update) {
+   public boolean existsPersonWithId(Long id) {
+      var sql = """
+            SELECT EXISTS (
+               SELECT 1
+               FROM customer
+               WHERE id = ?
+            )
+            """;
+
+      return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+   }
+
+   @Override
+   public Optional<Customer> updateCustomer(Customer update) {
+      List<String> assignments = new ArrayList<>(3);
+      List<String> changes = new ArrayList<>(3);
+      List<Object> values = new ArrayList<>(3);
+
       if (update.getName() != null) {
-         String sql = "UPDATE customer SET name = ? WHERE id = ?";
-         int result = jdbcTemplate.update(sql, update.getName(), update.getId());
-         System.out.println("Update customer name, result: " + result);
+         assignments.add("name = ?");
+         changes.add("name IS DISTINCT FROM ?");
+         values.add(update.getName());
       }
 
       if (update.getAge() != null) {
-         String sql = "UPDATE customer SET age = ? WHERE id = ?";
-         int result = jdbcTemplate.update(sql, update.getAge(), update.getId());
-         System.out.println("Update customer age, result: " + result);
+         assignments.add("age = ?");
+         changes.add("age IS DISTINCT FROM ?");
+         values.add(update.getAge());
       }
 
       if (update.getEmail() != null) {
-         String sql = "UPDATE customer SET email = ? WHERE id = ?";
-         int result = jdbcTemplate.update(sql, update.getEmail(), update.getId());
-         System.out.println("Update customer email, result: " + result);
+         assignments.add("email = ?");
+         changes.add("email IS DISTINCT FROM ?");
+         values.add(update.getEmail());
+      }
+
+      if (assignments.isEmpty()) {
+         throw new RequestValidationException("no data changes found");
+      }
+
+      // with a version this is a compare-and-set, no row lock is held between read and write.
+      // A row the update would leave as it is isn't written, so its version and ETag stay.
+      // The join reads the row as it was before the update, so a customer that is there but
+      // not updated is told apart from a missing one without a second query
+      List<Object> args = new ArrayList<>(values);
+      args.add(update.getId());
+      String versionCheck = "";
+      if (update.getVersion() != null) {
+         versionCheck = " AND version = ?";
+         args.add(update.getVersion());
+      }
+      args.addAll(values);
+      args.add(update.getId());
+      var sql = """
+            WITH updated AS (
+               UPDATE customer
+               SET %s, version = version + 1
+               WHERE id = ?%s AND (%s)
+               RETURNING id, name, email, age, version
+            )
+            SELECT updated.id, updated.name, updated.email, updated.age, updated.version,
+                   customer.name AS current_name, customer.email AS current_email,
+                   customer.age AS current_age, customer.version AS current_version
+            FROM customer
+            LEFT JOIN updated ON true
+            WHERE customer.id = ?
+            """.formatted(String.join(", ", assignments), versionCheck, String.join(" OR ", changes));
+
+      List<UpdatedRow> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+         Customer current = new Customer(
+               update.getId(),
+               rs.getString("current_name"),
+               rs.getString("current_email"),
+               rs.getInt("current_age"));
+         current.setVersion(rs.getLong("current_version"));
+         return new UpdatedRow(rs.getObject("id") == null ? null : customerRowMapper.mapRow(rs, rowNum), current);
+      }, args.toArray());
+      Optional<Customer> updated = rows.stream().findFirst().map(UpdatedRow::updated);
+      log.atDebug()
+            .addKeyValue("customerId", update.getId())
+            .addKeyValue("version", update.getVersion())
+            .addKeyValue("rows", updated.isPresent() ? 1 : 0)
+            .log("customer updated");
+      if (updated.isPresent() || rows.isEmpty()) {
+         return updated;
+      }
+
+      Customer current = rows.get(0).current();
+      if (update.getVersion() != null && !update.getVersion().equals(current.getVersion())) {
+         throw new OptimisticLockingFailureException(
+               "customer with id [%s] is no longer at version [%s]".formatted(update.getId(), update.getVersion()));
       }
+      // a concurrent update or delete that got to the row first either moved its version,
+      // left nothing to change or removed it
+      if (current.isChangedBy(update) && update.getVersion() != null) {
+         throw new OptimisticLockingFailureException(
+               "customer with id [%s] is no longer at version [%s]".formatted(update.getId(), update.getVersion()));
+      }
+      if (!current.isChangedBy(update) || existsPersonWithId(update.getId())) {
+         throw new RequestValidationException("no data changes found");
+      }
+      return Optional.empty();
+   }
 
+   // the customer as the update left it, null when it wasn't updated, and as it was before
+   private record UpdatedRow(Customer updated, Customer current) {
    }
 }
 
@@ -1,11 +1,26 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.exception.RequestValidationException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository("jpa")
+@Timed(value = "customer.dao", extraTags = {"dao", "jpa"})
 public class CustomerJpaDataAccessService implements CustomerDao {
 
    private final CustomerRepository customerRepository;
@@ -20,13 +35,84 @@ public class CustomerJpaDataAccessService implements CustomerDao {
    }
 
    @Override
-   public Optional<Customer> selectCustomerById(Integer id) {
+   public List<Customer> selectCustomers(Long afterId, int limit) {
+      return customerRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+   }
+
+   @Override
+   public List<Customer> searchCustomers(CustomerSearchCriteria criteria) {
+      Sort.Direction direction = criteria.descending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+      Sort sort = Sort.by(direction, criteria.sortField().getColumn(), "id");
+      return customerRepository.findBy(searchSpecification(criteria),
+            query -> query.sortBy(sort).limit(criteria.limit()).all());
+   }
+
+   private static Specification<Customer> searchSpecification(CustomerSearchCriteria criteria) {
+      return (root, query, cb) -> {
+         List<Predicate> predicates = new ArrayList<>(5);
+         if (criteria.name() != null) {
+            predicates.add(cb.like(cb.lower(root.get("name")),
+                  criteria.namePattern().toLowerCase(Locale.ROOT), '\\'));
+         }
+         if (criteria.emailPrefix() != null) {
+            predicates.add(cb.like(root.get("email"), criteria.emailPattern(), '\\'));
+         }
+         if (criteria.minAge() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("age"), criteria.minAge()));
+         }
+         if (criteria.maxAge() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("age"), criteria.maxAge()));
+         }
+         Customer after = criteria.after();
+         if (after != null) {
+            boolean descending = criteria.descending();
+            Path<Long> id = root.get("id");
+            predicates.add(switch (criteria.sortField()) {
+               case ID -> after(cb, id, after.getId(), descending);
+               case NAME -> after(cb, root.get("name"), after.getName(), id, after.getId(), descending);
+               case EMAIL -> after(cb, root.get("email"), after.getEmail(), id, after.getId(), descending);
+               case AGE -> after(cb, root.get("age"), after.getAge(), id, after.getId(), descending);
+            });
+         }
+         return cb.and(predicates.toArray(Predicate[]::new));
+      };
+   }
+
+   private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<T> column,
+                                                                   T value, boolean descending) {
+      return descending ? cb.lessThan(column, value) : cb.greaterThan(column, value);
+   }
+
+   // (column, id) > (value, afterId), spelled out as JPQL has no row values
+   private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<T> column,
+                                                                   T value, Expression<Long> id,
+                                                                   Long afterId, boolean descending) {
+      return cb.or(
+            after(cb, column, value, descending),
+            cb.and(cb.equal(column, value), after(cb, id, afterId, descending)));
+   }
+
+   @Override
+   public Optional<Customer> selectCustomerById(Long id) {
       return customerRepository.findById(id);
    }
 
    @Override
-   public void insertCustomer(Customer customer) {
-      customerRepository.save(customer);
+   public Optional<Long> insertCustomer(Customer customer) {
+      return customerRepository.insertIfEmailAvailable(
+            customer.getName(), customer.getEmail(), customer.getAge());
+   }
+
+   @Override
+   public Set<String> insertCustomers(List<Customer> customers) {
+      Set<String> takenEmails = customerRepository.findTakenEmails(
+            customers.stream().map(Customer::getEmail).toList());
+      List<Customer> newCustomers = customers.stream()
+            .filter(c -> !takenEmails.contains(c.getEmail()))
+            .toList();
+
+      customerRepository.saveAll(newCustomers);
+      return newCustomers.stream().map(Customer::getEmail).collect(Collectors.toSet());
    }
 
    @Override
@@ -35,18 +121,46 @@ public class CustomerJpaDataAccessService implements CustomerDao {
    }
 
    @Override
-   public void deleteCustomerById(Integer id) {
-      customerRepository.deleteById(id);
+   public int deleteCustomerById(Long id) {
+      return customerRepository.deleteCustomerById(id);
+   }
+
+   @Override
+   public int deleteCustomerById(Long id, long version) {
+      return customerRepository.deleteCustomerByIdAndVersion(id, version);
    }
 
    @Override
-   public boolean existsPersonWithId(Integer id) {
+   public boolean existsPersonWithId(Long id) {
       return customerRepository.existsCustomerById(id);
    }
 
    @Override
-   public void updateCustomer(Customer update) {
-      customerRepository.save(update);
+   // the update only carries the fields to change. Saved at the version it carries, the
+   // merge's @Version check makes it a compare-and-set
+   public Optional<Customer> updateCustomer(Customer update) {
+      return customerRepository.findById(update.getId()).map(customer -> {
+         if (update.getVersion() != null && !update.getVersion().equals(customer.getVersion())) {
+            throw new OptimisticLockingFailureException(
+                  "customer with id [%s] is no longer at version [%s]".formatted(update.getId(), update.getVersion()));
+         }
+         if (!customer.isChangedBy(update)) {
+            throw new RequestValidationException("no data changes found");
+         }
+         if (update.getName() != null) {
+            customer.setName(update.getName());
+         }
+         if (update.getEmail() != null) {
+            customer.setEmail(update.getEmail());
+         }
+         if (update.getAge() != null) {
+            customer.setAge(update.getAge());
+         }
+         if (update.getVersion() != null) {
+            customer.setVersion(update.getVersion());
+         }
+         return customerRepository.save(customer);
+      });
    }
 }
 
@@ -0,0 +1,56 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+// the same JSON the bean serializer writes, without going through a property writer
+// per field; names are encoded once and everything goes straight into the generator's
+// buffer. Inclusion settings and mixins do not apply, so keep it in step with Customer
+@JsonComponent
+public class CustomerJsonSerializer extends StdSerializer<Customer> {
+
+   private static final SerializedString ID = new SerializedString("id");
+   private static final SerializedString NAME = new SerializedString("name");
+   private static final SerializedString EMAIL = new SerializedString("email");
+   private static final SerializedString AGE = new SerializedString("age");
+
+   public CustomerJsonSerializer() {
+      super(Customer.class);
+   }
+
+   @Override
+   public void serialize(Customer customer, JsonGenerator generator, SerializerProvider provider)
+         throws IOException {
+      generator.writeStartObject(customer);
+      generator.writeFieldName(ID);
+      writeNumber(generator, customer.getId());
+      generator.writeFieldName(NAME);
+      generator.writeString(customer.getName());
+      generator.writeFieldName(EMAIL);
+      generator.writeString(customer.getEmail());
+      generator.writeFieldName(AGE);
+      writeNumber(generator, customer.getAge());
+      generator.writeEndObject();
+   }
+
+   private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+      if (value == null) {
+         generator.writeNull();
+      } else {
+         generator.writeNumber(value.longValue());
+      }
+   }
+
+   private static void writeNumber(JsonGenerator generator, Integer value) throws IOException {
+      if (value == null) {
+         generator.writeNull();
+      } else {
+         generator.writeNumber(value.intValue());
+      }
+   }
+}
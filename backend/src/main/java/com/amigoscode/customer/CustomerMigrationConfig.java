@@ -0,0 +1,37 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.migration.Backfill;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CustomerMigrationConfig {
+
+   // the data half of V10: copies the customers from before its trigger into customer_partitioned
+   // and claims their emails. The batch's rows are locked, so an update waits for it and its
+   // trigger then copies the newer row. A claim an insert made for an email whose owner wasn't
+   // copied yet goes back to the owner
+   @Bean
+   public Backfill customerPartitionedBackfill() {
+      return new Backfill("customer_partitioned", "customer", """
+            WITH batch AS (
+               SELECT id, name, email, age, version, updated_at
+               FROM customer
+               WHERE id > ? AND id <= ?
+               FOR SHARE
+            ),
+            claimed AS (
+               INSERT INTO customer_email(email, customer_id)
+               SELECT email, id
+               FROM batch
+               ON CONFLICT (email) DO UPDATE
+                  SET customer_id = EXCLUDED.customer_id
+                  WHERE customer_email.customer_id <> EXCLUDED.customer_id
+            )
+            INSERT INTO customer_partitioned(id, name, email, age, version, updated_at)
+            SELECT id, name, email, age, version, updated_at
+            FROM batch
+            ON CONFLICT (id) DO NOTHING
+            """);
+   }
+}
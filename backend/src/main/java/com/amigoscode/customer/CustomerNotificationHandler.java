@@ -0,0 +1,15 @@
+package com.amigoscode.customer;
+
+// what CustomerNotifications does with the notifications of one channel
+interface CustomerNotificationHandler {
+
+   String channel();
+
+   // notifications committed from here on reach notified, earlier ones may have been missed
+   void listening();
+
+   void notified(String payload);
+
+   // notifications from here on may be missed, until listening is called again
+   void stopped();
+}
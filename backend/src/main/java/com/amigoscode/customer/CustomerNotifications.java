@@ -0,0 +1,97 @@
+package com.amigoscode.customer;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// the one connection of the application that is not the pool's. A LISTEN only hears
+// notifications on the session that ran it, for as long as that stays open, so a pooled
+// connection would be held for good, counted as a leak and missing from the requests.
+// It is opened from the same spring.datasource settings, and reopened when it drops
+@Component
+public class CustomerNotifications {
+
+   private static final Logger log = LoggerFactory.getLogger(CustomerNotifications.class);
+
+   private static final int POLL_MILLIS = 500;
+   private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+   private final DataSourceProperties dataSource;
+   private final List<CustomerNotificationHandler> handlers;
+   private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+   private volatile boolean running = true;
+
+   public CustomerNotifications(DataSourceProperties dataSource, List<CustomerNotificationHandler> handlers) {
+      this.dataSource = dataSource;
+      this.handlers = handlers;
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void start() {
+      executor.execute(this::listenUntilStopped);
+   }
+
+   @PreDestroy
+   public void stop() {
+      running = false;
+   }
+
+   private void listenUntilStopped() {
+      while (running) {
+         try (Connection connection = DriverManager.getConnection(
+               dataSource.determineUrl(),
+               dataSource.determineUsername(),
+               dataSource.determinePassword())) {
+            listen(connection);
+         } catch (SQLException | RuntimeException e) {
+            log.warn("stopped listening to customer notifications, reconnecting in {}", RECONNECT_DELAY, e);
+         } finally {
+            handlers.forEach(CustomerNotificationHandler::stopped);
+         }
+         try {
+            Thread.sleep(RECONNECT_DELAY);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+      }
+   }
+
+   private void listen(Connection connection) throws SQLException {
+      try (Statement statement = connection.createStatement()) {
+         for (CustomerNotificationHandler handler : handlers) {
+            statement.execute("LISTEN " + handler.channel());
+         }
+      }
+      handlers.forEach(CustomerNotificationHandler::listening);
+      PGConnection notifications = connection.unwrap(PGConnection.class);
+      while (running) {
+         PGNotification[] received = notifications.getNotifications(POLL_MILLIS);
+         if (received == null) {
+            continue;
+         }
+         for (PGNotification notification : received) {
+            for (CustomerNotificationHandler handler : handlers) {
+               if (handler.channel().equals(notification.getName())) {
+                  handler.notified(notification.getParameter());
+               }
+            }
+         }
+      }
+   }
+}
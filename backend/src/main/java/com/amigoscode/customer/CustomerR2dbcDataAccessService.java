@@ -0,0 +1,245 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository("r2dbc")
+@Profile("reactive")
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDao {
+
+   private static final int STREAM_FETCH_SIZE = 1000;
+
+   private final DatabaseClient databaseClient;
+
+   public CustomerR2dbcDataAccessService(DatabaseClient databaseClient) {
+      this.databaseClient = databaseClient;
+   }
+
+   @Override
+   public Flux<Customer> selectCustomers(Long afterId, int limit) {
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("afterId", afterId)
+            .bind("limit", limit)
+            .map(CustomerR2dbcDataAccessService::toCustomer)
+            .all();
+   }
+
+   // with a fetch size the driver reads the rows through a portal one batch at a time
+   // as the subscriber requests more, so a slow client holds back the query instead
+   // of the whole table piling up in memory
+   @Override
+   public Flux<Customer> streamAllCustomers() {
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            ORDER BY id
+            """;
+
+      return databaseClient.sql(sql)
+            .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+            .map(CustomerR2dbcDataAccessService::toCustomer)
+            .all();
+   }
+
+   @Override
+   public Mono<Customer> selectCustomerById(Long id) {
+      var sql = """
+            SELECT id, name, email, age, version
+            FROM customer
+            WHERE id = :id
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("id", id)
+            .map(CustomerR2dbcDataAccessService::toCustomer)
+            .one();
+   }
+
+   @Override
+   public Mono<Long> insertCustomer(Customer customer) {
+      var sql = """
+            WITH claimed AS (
+               INSERT INTO customer_email(email, customer_id)
+               VALUES(:email, nextval('customer_id_seq'))
+               ON CONFLICT (email) DO NOTHING
+               RETURNING email, customer_id
+            )
+            INSERT INTO customer(id, name, email, age)
+            SELECT customer_id, :name, email, :age
+            FROM claimed
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("name", customer.getName())
+            .bind("email", customer.getEmail())
+            .bind("age", customer.getAge())
+            .map(row -> row.get("id", Long.class))
+            .one();
+   }
+
+   @Override
+   public Mono<Boolean> existsPersonWithEmail(String email) {
+      var sql = """
+            SELECT EXISTS (
+               SELECT 1
+               FROM customer
+               WHERE email = :email
+            )
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("email", email)
+            .map(row -> row.get(0, Boolean.class))
+            .one();
+   }
+
+   @Override
+   public Mono<Long> deleteCustomerById(Long id) {
+      var sql = """
+            DELETE
+            FROM customer
+            WHERE id = :id
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("id", id)
+            .fetch()
+            .rowsUpdated();
+   }
+
+   @Override
+   public Mono<Customer> updateCustomer(Customer update) {
+      List<String> assignments = new ArrayList<>(3);
+      List<String> changes = new ArrayList<>(3);
+      Map<String, Object> args = new LinkedHashMap<>(4);
+
+      if (update.getName() != null) {
+         assignments.add("name = :name");
+         changes.add("name IS DISTINCT FROM :name");
+         args.put("name", update.getName());
+      }
+
+      if (update.getAge() != null) {
+         assignments.add("age = :age");
+         changes.add("age IS DISTINCT FROM :age");
+         args.put("age", update.getAge());
+      }
+
+      if (update.getEmail() != null) {
+         assignments.add("email = :email");
+         changes.add("email IS DISTINCT FROM :email");
+         args.put("email", update.getEmail());
+      }
+
+      if (assignments.isEmpty()) {
+         return Mono.error(new RequestValidationException("no data changes found"));
+      }
+
+      // with a version this is a compare-and-set like the jdbc one, and like it a row the
+      // update would leave as it is isn't written. The join reads the row as it was before
+      // the update, so a customer that is there but not updated is told apart from a missing one
+      String versionCheck = "";
+      args.put("id", update.getId());
+      if (update.getVersion() != null) {
+         versionCheck = " AND version = :version";
+         args.put("version", update.getVersion());
+      }
+      var sql = """
+            WITH updated AS (
+               UPDATE customer
+               SET %s, version = version + 1
+               WHERE id = :id%s AND (%s)
+               RETURNING id, name, email, age, version
+            )
+            SELECT updated.id, updated.name, updated.email, updated.age, updated.version,
+                   customer.name AS current_name, customer.email AS current_email,
+                   customer.age AS current_age, customer.version AS current_version
+            FROM customer
+            LEFT JOIN updated ON true
+            WHERE customer.id = :id
+            """.formatted(String.join(", ", assignments), versionCheck, String.join(" OR ", changes));
+
+      return databaseClient.sql(sql)
+            .bindValues(args)
+            .map(row -> {
+               Customer current = new Customer(
+                     update.getId(),
+                     row.get("current_name", String.class),
+                     row.get("current_email", String.class),
+                     row.get("current_age", Integer.class));
+               current.setVersion(row.get("current_version", Long.class));
+               return new UpdatedRow(row.get("id", Long.class) == null ? null : toCustomer(row), current);
+            })
+            .one()
+            .flatMap(row -> {
+               if (row.updated() != null) {
+                  return Mono.just(row.updated());
+               }
+               Customer current = row.current();
+               boolean stale = update.getVersion() != null && !update.getVersion().equals(current.getVersion());
+               // a concurrent update or delete that got to the row first either moved its
+               // version, left nothing to change or removed it
+               if (stale || current.isChangedBy(update) && update.getVersion() != null) {
+                  return Mono.error(new OptimisticLockingFailureException(
+                        "customer with id [%s] is no longer at version [%s]".formatted(update.getId(), update.getVersion())));
+               }
+               Mono<Boolean> unchanged = current.isChangedBy(update)
+                     ? existsPersonWithId(update.getId())
+                     : Mono.just(true);
+               return unchanged
+                     .filter(exists -> exists)
+                     .flatMap(exists -> Mono.<Customer>error(new RequestValidationException("no data changes found")));
+            });
+   }
+
+   private Mono<Boolean> existsPersonWithId(Long id) {
+      var sql = """
+            SELECT EXISTS (
+               SELECT 1
+               FROM customer
+               WHERE id = :id
+            )
+            """;
+
+      return databaseClient.sql(sql)
+            .bind("id", id)
+            .map(row -> row.get(0, Boolean.class))
+            .one();
+   }
+
+   // the customer as the update left it, null when it wasn't updated, and as it was before
+   private record UpdatedRow(Customer updated, Customer current) {
+   }
+
+   private static Customer toCustomer(Readable row) {
+      Customer customer = new Customer(
+            row.get("id", Long.class),
+            row.get("name", String.class),
+            row.get("email", String.class),
+            row.get("age", Integer.class)
+      );
+      customer.setVersion(row.get("version", Long.class));
+      return customer;
+   }
+}
@@ -1,10 +1,51 @@
 package com.amigoscode.customer;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
-   boolean existsCustomerByEmail(String email);
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
-   boolean existsCustomerById(Integer id);
+   // the derived exists queries select the id into a row, these only return the boolean
+   @Query(value = "SELECT EXISTS (SELECT 1 FROM customer WHERE email = :email)", nativeQuery = true)
+   boolean existsCustomerByEmail(@Param("email") String email);
+
+   @Query(value = "SELECT EXISTS (SELECT 1 FROM customer WHERE id = :id)", nativeQuery = true)
+   boolean existsCustomerById(@Param("id") Long id);
+
+   List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+   @Query(value = "SELECT email FROM customer WHERE email IN :emails", nativeQuery = true)
+   Set<String> findTakenEmails(@Param("emails") Collection<String> emails);
+
+   // returns rows rather than an update count, so it is not @Modifying, but it still needs
+   // a read-write transaction instead of the repository's read-only default. The claim
+   // lives in a V10 function as the native query parser rejects an INSERT inside a WITH
+   @Transactional
+   @Query(value = """
+         SELECT id
+         FROM customer_insert_if_email_available(:name, :email, :age)
+         """, nativeQuery = true)
+   Optional<Long> insertIfEmailAvailable(@Param("name") String name,
+                                            @Param("email") String email,
+                                            @Param("age") Integer age);
+
+   @Transactional
+   @Modifying
+   @Query("DELETE FROM Customer c WHERE c.id = :id")
+   int deleteCustomerById(@Param("id") Long id);
+
+   @Transactional
+   @Modifying
+   @Query("DELETE FROM Customer c WHERE c.id = :id AND c.version = :version")
+   int deleteCustomerByIdAndVersion(@Param("id") Long id, @Param("version") long version);
 }
@@ -0,0 +1,33 @@
+package com.amigoscode.customer;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+@Profile("reactive")
+public class CustomerRouter {
+
+   @Bean
+   RouterFunction<ServerResponse> customerRoutes(CustomerHandler customerHandler) {
+      return RouterFunctions.route()
+            .path("/api/v1/customers", builder -> builder
+                  .GET("", ndjsonRequested(), customerHandler::streamCustomers)
+                  .GET("", customerHandler::getCustomers)
+                  .GET("/{id}", customerHandler::getCustomer)
+                  .POST("", customerHandler::registerCustomer)
+                  .DELETE("/{id}", customerHandler::deleteCustomer)
+                  .PUT("/{id}", customerHandler::updateCustomer))
+            .build();
+   }
+
+   // RequestPredicates.accept would also match */*, and plain clients should keep getting pages
+   private static RequestPredicate ndjsonRequested() {
+      return request -> request.headers().accept().contains(MediaType.APPLICATION_NDJSON);
+   }
+}
@@ -10,11 +10,13 @@ import java.sql.SQLException;
 public class CustomerRowMapper implements RowMapper<Customer> {
    @Override
    public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
-      return new Customer(
-            rs.getInt("id"),
+      Customer customer = new Customer(
+            rs.getLong("id"),
             rs.getString("name"),
             rs.getString("email"),
             rs.getInt("age")
       );
+      customer.setVersion(rs.getLong("version"));
+      return customer;
    }
 }
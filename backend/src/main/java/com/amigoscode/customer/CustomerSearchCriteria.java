@@ -0,0 +1,42 @@
+package com.amigoscode.customer;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+public record CustomerSearchCriteria(String name,
+                                     String emailPrefix,
+                                     Integer minAge,
+                                     Integer maxAge,
+                                     CustomerSortField sortField,
+                                     boolean descending,
+                                     Customer after,
+                                     int limit) {
+
+   public Comparator<Customer> order() {
+      Comparator<Customer> order = sortField.getComparator().thenComparing(Customer::getId);
+      return descending ? order.reversed() : order;
+   }
+
+   public String namePattern() {
+      return "%" + escapeLike(name) + "%";
+   }
+
+   public String emailPattern() {
+      return escapeLike(emailPrefix) + "%";
+   }
+
+   public boolean matches(Customer customer) {
+      return (name == null || customer.getName().toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT)))
+            && (emailPrefix == null || customer.getEmail().startsWith(emailPrefix))
+            && (minAge == null || customer.getAge() >= minAge)
+            && (maxAge == null || customer.getAge() <= maxAge)
+            && (after == null || order().compare(customer, after) > 0);
+   }
+
+   // the filters are matched literally, so LIKE wildcards typed by the user are escaped
+   private static String escapeLike(String value) {
+      return value.replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+   }
+}
@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+public record CustomerSearchRequest(String name,
+                                    String email,
+                                    Integer minAge,
+                                    Integer maxAge,
+                                    String sort,
+                                    String cursor,
+                                    Integer size) {
+}
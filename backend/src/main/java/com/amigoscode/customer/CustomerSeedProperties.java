@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "customer.seed")
+public record CustomerSeedProperties(@DefaultValue("1000000") long customers,
+                                     @DefaultValue("42") long seed,
+                                     @DefaultValue("100000") int batchSize) {
+}
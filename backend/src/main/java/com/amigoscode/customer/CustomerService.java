@@ -1,79 +1,223 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.customer.CustomerBulkRegistrationResult.Status;
 import com.amigoscode.exception.DuplicateResource;
+import com.amigoscode.exception.PreconditionFailed;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFound;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
+@Timed("customer.service")
 public class CustomerService {
 
+   static final int DEFAULT_PAGE_SIZE = 50;
+   static final int MAX_PAGE_SIZE = 500;
+   static final int MAX_BULK_REGISTRATIONS = 10_000;
+   // trigrams need at least three characters to narrow a search down through the index
+   static final int MIN_NAME_SEARCH_LENGTH = 3;
+   // an update that loses a deadlock or gives up waiting for a lock is sent again, a few times
+   static final int UPDATE_ATTEMPTS = 3;
+
    private final CustomerDao customerDao;
 
-   public CustomerService(@Qualifier("jdbc") CustomerDao customerDao) {
+   public CustomerService(@Qualifier("cached") CustomerDao customerDao) {
       this.customerDao = customerDao;
    }
 
-   public List<Customer> getAllCustomers() {
-      return customerDao.selectAllCustomers();
+   public CustomerPage getCustomers(String cursor, Integer size) {
+      int pageSize = pageSize(size);
+      // one extra row tells us whether there is a next page without a count query
+      return page(customerDao.selectCustomers(afterId(cursor), pageSize + 1), pageSize, CustomerSortField.ID);
+   }
+
+   static int pageSize(Integer size) {
+      int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+      if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+         throw new RequestValidationException(
+               "page size must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+      }
+      return pageSize;
+   }
+
+   static Long afterId(String cursor) {
+      return cursor == null ? 0L : CustomerCursor.decode(cursor);
    }
 
-   public Customer getCustomer(Integer id) {
+   static CustomerPage page(List<Customer> customers, int pageSize, CustomerSortField sortField) {
+      if (customers.size() <= pageSize) {
+         return new CustomerPage(customers, null);
+      }
+
+      List<Customer> page = customers.subList(0, pageSize);
+      return new CustomerPage(page, CustomerCursor.encode(sortField, page.get(pageSize - 1)));
+   }
+
+   public CustomerPage searchCustomers(CustomerSearchRequest searchRequest) {
+      int pageSize = pageSize(searchRequest.size());
+
+      String name = blankToNull(searchRequest.name());
+      if (name != null && name.length() < MIN_NAME_SEARCH_LENGTH) {
+         throw new RequestValidationException(
+               "name must be at least %s characters".formatted(MIN_NAME_SEARCH_LENGTH));
+      }
+
+      Integer minAge = searchRequest.minAge();
+      Integer maxAge = searchRequest.maxAge();
+      if (minAge != null && maxAge != null && minAge > maxAge) {
+         throw new RequestValidationException("minAge must not be greater than maxAge");
+      }
+
+      String[] sort = searchRequest.sort() == null ? new String[]{"id"} : searchRequest.sort().split(",", 2);
+      CustomerSortField sortField = CustomerSortField.from(sort[0].trim());
+      boolean descending = sort.length == 2 && isDescending(sort[1].trim());
+      Customer after = searchRequest.cursor() == null ? null : CustomerCursor.decode(sortField, searchRequest.cursor());
+
+      List<Customer> customers = customerDao.searchCustomers(new CustomerSearchCriteria(
+            name, blankToNull(searchRequest.email()), minAge, maxAge, sortField, descending, after, pageSize + 1));
+      return page(customers, pageSize, sortField);
+   }
+
+   private static boolean isDescending(String direction) {
+      if (direction.equalsIgnoreCase("desc")) {
+         return true;
+      }
+      if (direction.equalsIgnoreCase("asc")) {
+         return false;
+      }
+      throw new RequestValidationException("unsupported sort direction [%s]".formatted(direction));
+   }
+
+   private static String blankToNull(String value) {
+      return value == null || value.isBlank() ? null : value.trim();
+   }
+
+   public void exportCustomers(Consumer<Customer> consumer) {
+      customerDao.streamAllCustomers(consumer);
+   }
+
+   public Customer getCustomer(Long id) {
       return customerDao.selectCustomerById(id).orElseThrow(() ->
             new ResourceNotFound("Customer with id [%s] not found".formatted(id)));
    }
 
+   public boolean isEmailAvailable(String email) {
+      return !customerDao.existsPersonWithEmail(email);
+   }
+
+   // customer_email_unique decides in the same statement, checking for the email first
+   // costs a round trip and still races with a concurrent registration
    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-      String email = customerRegistrationRequest.email();
-      if (customerDao.existsPersonWithEmail(email)) {
+      Customer customer = new Customer(
+            customerRegistrationRequest.name(),
+            customerRegistrationRequest.email(),
+            customerRegistrationRequest.age());
+      if (customerDao.insertCustomer(customer).isEmpty()) {
          throw new DuplicateResource("Email already taken");
-      } else {
-         Customer customer = new Customer(
-               customerRegistrationRequest.name(),
-               customerRegistrationRequest.email(),
-               customerRegistrationRequest.age());
-         customerDao.insertCustomer(customer);
       }
    }
 
-   public void deleteCustomer(Integer id) {
-      if (!customerDao.existsPersonWithId(id)) {
-         throw new ResourceNotFound("customer with id [%s] not found".formatted(id));
+   public List<CustomerBulkRegistrationResult> addCustomers(List<CustomerRegistrationRequest> requests) {
+      if (requests == null || requests.isEmpty() || requests.size() > MAX_BULK_REGISTRATIONS) {
+         throw new RequestValidationException(
+               "bulk registration must contain between 1 and %s customers".formatted(MAX_BULK_REGISTRATIONS));
+      }
+      // List.of rejects contains(null), a parsed body is an ArrayList that may hold nulls
+      if (requests.stream().anyMatch(Objects::isNull)) {
+         throw new RequestValidationException("bulk registration must not contain null customers");
       }
 
-      customerDao.deleteCustomerById(id);
-   }
-
-   public void updateCustomer(Integer id, CustomerUpdateRequest updateRequest) {
-      Customer customer = getCustomer(id);
+      CustomerBulkRegistrationResult[] results = new CustomerBulkRegistrationResult[requests.size()];
+      List<Customer> customers = new ArrayList<>(requests.size());
+      List<Integer> indexes = new ArrayList<>(requests.size());
+      Set<String> emails = new HashSet<>(requests.size());
+
+      for (int i = 0; i < requests.size(); i++) {
+         CustomerRegistrationRequest request = requests.get(i);
+         if (request.name() == null || request.name().isBlank()
+               || request.email() == null || request.email().isBlank()
+               || request.age() == null) {
+            results[i] = new CustomerBulkRegistrationResult(i, request.email(),
+                  Status.INVALID, "name, email and age are required");
+         } else if (!emails.add(request.email())) {
+            results[i] = new CustomerBulkRegistrationResult(i, request.email(),
+                  Status.DUPLICATE, "Email repeated in request");
+         } else {
+            customers.add(new Customer(request.name(), request.email(), request.age()));
+            indexes.add(i);
+         }
+      }
 
-      boolean changes = false;
+      Set<String> inserted = customers.isEmpty() ? Set.of() : customerDao.insertCustomers(customers);
 
-      if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())) {
-         customer.setName(updateRequest.name());
-         changes = true;
+      for (int i : indexes) {
+         String email = requests.get(i).email();
+         results[i] = inserted.contains(email)
+               ? new CustomerBulkRegistrationResult(i, email, Status.CREATED, null)
+               : new CustomerBulkRegistrationResult(i, email, Status.DUPLICATE, "Email already taken");
       }
+      return List.of(results);
+   }
 
-      if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())) {
-         if (customerDao.existsPersonWithEmail(updateRequest.email())) {
-            throw new DuplicateResource("Email already taken");
+   public void deleteCustomer(Long id) {
+      deleteCustomer(id, null);
+   }
+
+   // a null expectedVersion deletes whatever version is current
+   public void deleteCustomer(Long id, Long expectedVersion) {
+      int deleted = expectedVersion == null
+            ? customerDao.deleteCustomerById(id)
+            : customerDao.deleteCustomerById(id, expectedVersion);
+      if (deleted == 0) {
+         if (expectedVersion != null && customerDao.existsPersonWithId(id)) {
+            throw new PreconditionFailed("customer with id [%s] has been modified".formatted(id));
          }
-         customer.setEmail(updateRequest.email());
-         changes = true;
+         throw new ResourceNotFound("customer with id [%s] not found".formatted(id));
       }
+   }
 
-      if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())) {
-         customer.setAge(updateRequest.age());
-         changes = true;
-      }
+   public Customer updateCustomer(Long id, CustomerUpdateRequest updateRequest) {
+      return updateCustomer(id, updateRequest, null);
+   }
 
-      if (!changes) {
+   // one UPDATE ... RETURNING that only sets the fields sent, so there is no read for a
+   // concurrent update to make stale. With a version from If-Match it only applies at the
+   // version the client saw
+   public Customer updateCustomer(Long id, CustomerUpdateRequest updateRequest, Long expectedVersion) {
+      if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
          throw new RequestValidationException("no data changes found");
       }
 
-      customerDao.updateCustomer(customer);
+      Customer update = new Customer(id, updateRequest.name(), updateRequest.email(), updateRequest.age());
+      update.setVersion(expectedVersion);
+
+      for (int attempt = 1; ; attempt++) {
+         // customer_email_unique rejects a taken email, so there is no need to check first
+         try {
+            return customerDao.updateCustomer(update).orElseThrow(() ->
+                  new ResourceNotFound("Customer with id [%s] not found".formatted(id)));
+         } catch (PessimisticLockingFailureException e) {
+            // the statement rolled back as a whole, so it is safe to send again
+            if (attempt == UPDATE_ATTEMPTS) {
+               throw e;
+            }
+         } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailed("customer with id [%s] has been modified".formatted(id));
+         } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResource("Email already taken");
+         }
+      }
    }
 }
@@ -0,0 +1,58 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.util.Comparator;
+
+public enum CustomerSortField {
+
+   ID("id", Comparator.comparing(Customer::getId)),
+   NAME("name", Comparator.comparing(Customer::getName)),
+   EMAIL("email", Comparator.comparing(Customer::getEmail)),
+   AGE("age", Comparator.comparing(Customer::getAge));
+
+   // doubles as the jpa attribute name
+   private final String column;
+   private final Comparator<Customer> comparator;
+
+   CustomerSortField(String column, Comparator<Customer> comparator) {
+      this.column = column;
+      this.comparator = comparator;
+   }
+
+   public String getColumn() {
+      return column;
+   }
+
+   public Comparator<Customer> getComparator() {
+      return comparator;
+   }
+
+   public Object valueOf(Customer customer) {
+      return switch (this) {
+         case ID -> customer.getId();
+         case NAME -> customer.getName();
+         case EMAIL -> customer.getEmail();
+         case AGE -> customer.getAge();
+      };
+   }
+
+   // a customer carrying only what keyset pagination compares against: the id and this field
+   Customer position(Long id, String value) {
+      return switch (this) {
+         case ID -> new Customer(id, null, null, null);
+         case NAME -> new Customer(id, value, null, null);
+         case EMAIL -> new Customer(id, null, value, null);
+         case AGE -> new Customer(id, null, null, Integer.valueOf(value));
+      };
+   }
+
+   public static CustomerSortField from(String field) {
+      for (CustomerSortField sortField : values()) {
+         if (sortField.column.equalsIgnoreCase(field)) {
+            return sortField;
+         }
+      }
+      throw new RequestValidationException("unsupported sort field [%s]".formatted(field));
+   }
+}
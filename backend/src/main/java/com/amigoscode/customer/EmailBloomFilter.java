@@ -0,0 +1,67 @@
+package com.amigoscode.customer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a false mightContain means the email was never put, a true one only means it may
+// have been; bits are never cleared, so freed emails stay as false positives. The bits
+// are capped, past the emails that fit them at the rate asked for the rate goes up
+class EmailBloomFilter {
+
+   private final AtomicLongArray words;
+   private final long bits;
+   private final int hashes;
+
+   EmailBloomFilter(long expectedEmails, double falsePositiveRate, long maximumBits) {
+      long n = Math.max(expectedEmails, 1);
+      long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+      m = Math.max(Math.min(m, maximumBits), 64);
+      this.words = new AtomicLongArray(Math.toIntExact((m + 63) / 64));
+      this.bits = words.length() * 64L;
+      this.hashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+   }
+
+   void put(String email) {
+      long hash = hash(email);
+      long step = Long.rotateLeft(hash, 32);
+      for (int i = 1; i <= hashes; i++) {
+         long bit = index(hash + i * step);
+         int word = (int) (bit >>> 6);
+         long mask = 1L << bit;
+         if ((words.get(word) & mask) == 0) {
+            words.getAndAccumulate(word, mask, (current, set) -> current | set);
+         }
+      }
+   }
+
+   boolean mightContain(String email) {
+      long hash = hash(email);
+      long step = Long.rotateLeft(hash, 32);
+      for (int i = 1; i <= hashes; i++) {
+         long bit = index(hash + i * step);
+         if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   // double hashing in longs, so the index reaches every bit past 2^31 as well
+   private long index(long combined) {
+      return Math.floorMod(combined, bits);
+   }
+
+   // FNV-1a over the chars, finished with murmur3's fmix64 so both halves are usable
+   private static long hash(String email) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < email.length(); i++) {
+         hash ^= email.charAt(i);
+         hash *= 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb93fe53c1bb2L;
+      hash ^= hash >>> 33;
+      return hash;
+   }
+}
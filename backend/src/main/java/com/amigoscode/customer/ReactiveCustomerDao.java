@@ -0,0 +1,22 @@
+package com.amigoscode.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDao {
+
+   Flux<Customer> selectCustomers(Long afterId, int limit);
+
+   Flux<Customer> streamAllCustomers();
+
+   Mono<Customer> selectCustomerById(Long id);
+
+   Mono<Long> insertCustomer(Customer customer);
+
+   Mono<Boolean> existsPersonWithEmail(String email);
+
+   Mono<Long> deleteCustomerById(Long id);
+
+   // as CustomerDao.updateCustomer, with its errors signalled
+   Mono<Customer> updateCustomer(Customer update);
+}
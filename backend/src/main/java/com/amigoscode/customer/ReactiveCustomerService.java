@@ -0,0 +1,83 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResource;
+import com.amigoscode.exception.PreconditionFailed;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFound;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+
+   private final ReactiveCustomerDao customerDao;
+
+   public ReactiveCustomerService(ReactiveCustomerDao customerDao) {
+      this.customerDao = customerDao;
+   }
+
+   public Mono<CustomerPage> getCustomers(String cursor, Integer size) {
+      return Mono.defer(() -> {
+         int pageSize = CustomerService.pageSize(size);
+         return customerDao.selectCustomers(CustomerService.afterId(cursor), pageSize + 1)
+               .collectList()
+               .map(customers -> CustomerService.page(customers, pageSize, CustomerSortField.ID));
+      });
+   }
+
+   public Flux<Customer> streamCustomers() {
+      return customerDao.streamAllCustomers();
+   }
+
+   public Mono<Customer> getCustomer(Long id) {
+      return customerDao.selectCustomerById(id)
+            .switchIfEmpty(Mono.error(() ->
+                  new ResourceNotFound("Customer with id [%s] not found".formatted(id))));
+   }
+
+   public Mono<Void> addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+      return customerDao.insertCustomer(new Customer(
+                  customerRegistrationRequest.name(),
+                  customerRegistrationRequest.email(),
+                  customerRegistrationRequest.age()))
+            .switchIfEmpty(Mono.error(() -> new DuplicateResource("Email already taken")))
+            .then();
+   }
+
+   public Mono<Void> deleteCustomer(Long id) {
+      return customerDao.deleteCustomerById(id)
+            .filter(deleted -> deleted > 0)
+            .switchIfEmpty(Mono.error(() ->
+                  new ResourceNotFound("customer with id [%s] not found".formatted(id))))
+            .then();
+   }
+
+   // the same single statement as CustomerService, retried the same way
+   public Mono<Void> updateCustomer(Long id, CustomerUpdateRequest updateRequest, Long expectedVersion) {
+      return Mono.defer(() -> {
+               if (updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null) {
+                  return Mono.error(new RequestValidationException("no data changes found"));
+               }
+               Customer update = new Customer(id, updateRequest.name(), updateRequest.email(), updateRequest.age());
+               update.setVersion(expectedVersion);
+               return Mono.defer(() -> customerDao.updateCustomer(update))
+                     .retryWhen(Retry.max(CustomerService.UPDATE_ATTEMPTS - 1)
+                           .filter(PessimisticLockingFailureException.class::isInstance)
+                           .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+            })
+            .switchIfEmpty(Mono.error(() ->
+                  new ResourceNotFound("Customer with id [%s] not found".formatted(id))))
+            .onErrorMap(DataIntegrityViolationException.class,
+                  e -> new DuplicateResource("Email already taken"))
+            .onErrorMap(OptimisticLockingFailureException.class,
+                  e -> new PreconditionFailed("customer with id [%s] has been modified".formatted(id)))
+            .then();
+   }
+}
@@ -0,0 +1,31 @@
+package com.amigoscode.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// lets through at most eventsPerSecond events per wall clock second and drops the rest,
+// decided on the logging thread before the event is queued or encoded
+public class RateLimitingFilter extends Filter<ILoggingEvent> {
+
+   private final AtomicLong second = new AtomicLong();
+   private final AtomicInteger events = new AtomicInteger();
+   private int eventsPerSecond = 100;
+
+   public void setEventsPerSecond(int eventsPerSecond) {
+      this.eventsPerSecond = eventsPerSecond;
+   }
+
+   @Override
+   public FilterReply decide(ILoggingEvent event) {
+      long now = event.getTimeStamp() / 1000;
+      long current = second.get();
+      if (now > current && second.compareAndSet(current, now)) {
+         events.set(0);
+      }
+      return events.incrementAndGet() <= eventsPerSecond ? FilterReply.NEUTRAL : FilterReply.DENY;
+   }
+}
@@ -0,0 +1,7 @@
+package com.amigoscode.migration;
+
+// the data half of an expand/contract change, declared as a bean. sql updates the rows of
+// table with from < id <= to, given as its two parameters, and has to leave a row it
+// already backfilled as it is, a batch that failed is run again
+public record Backfill(String name, String table, String sql) {
+}
@@ -0,0 +1,13 @@
+package com.amigoscode.migration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "migration.backfill")
+public record BackfillProperties(@DefaultValue("true") boolean enabled,
+                                 @DefaultValue("1000") int batchSize,
+                                 @DefaultValue("100ms") Duration pause,
+                                 @DefaultValue("2s") Duration lockTimeout) {
+}
@@ -0,0 +1,172 @@
+package com.amigoscode.migration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// runs the backfills once the application is ready, one after the other, in batches of
+// ids that are each committed together with the backfill's progress row. Instances share
+// that row, whoever holds its lock runs the next batch
+@Component
+public class BackfillRunner implements MeterBinder {
+
+   private static final Logger log = LoggerFactory.getLogger(BackfillRunner.class);
+
+   private enum Batch { BACKFILLED, LOCKED, COMPLETED }
+
+   private static final class Progress {
+      private volatile long lastId;
+      private volatile long backfilledRows;
+      private volatile long maxId;
+      private volatile boolean completed;
+
+      double ratio() {
+         return completed ? 1 : maxId == 0 ? 0 : Math.min((double) lastId / maxId, 1);
+      }
+   }
+
+   private final List<Backfill> backfills;
+   private final JdbcTemplate jdbcTemplate;
+   private final TransactionTemplate transactionTemplate;
+   private final BackfillProperties properties;
+   private final Executor runner = Executors.newVirtualThreadPerTaskExecutor();
+   private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+   private volatile boolean stopping;
+
+   public BackfillRunner(List<Backfill> backfills,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         BackfillProperties properties) {
+      this.backfills = backfills;
+      this.jdbcTemplate = jdbcTemplate;
+      this.transactionTemplate = new TransactionTemplate(transactionManager);
+      this.properties = properties;
+      backfills.forEach(backfill -> progress.put(backfill.name(), new Progress()));
+   }
+
+   @Override
+   public void bindTo(MeterRegistry registry) {
+      progress.forEach((name, backfill) -> {
+         Gauge.builder("backfill.rows", backfill, p -> p.backfilledRows)
+               .tag("backfill", name)
+               .register(registry);
+         Gauge.builder("backfill.progress", backfill, Progress::ratio)
+               .tag("backfill", name)
+               .register(registry);
+      });
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void runOnStartup() {
+      if (!properties.enabled() || backfills.isEmpty()) {
+         return;
+      }
+      CompletableFuture.runAsync(() -> backfills.forEach(this::run), runner).whenComplete((ignored, e) -> {
+         if (e != null) {
+            log.warn("backfills stopped, they carry on after their last batch on the next start", e);
+         }
+      });
+   }
+
+   @PreDestroy
+   public void stop() {
+      stopping = true;
+   }
+
+   // returns whether the backfill completed, rather than being stopped
+   boolean run(Backfill backfill) {
+      Progress progress = this.progress.get(backfill.name());
+      jdbcTemplate.update("""
+            INSERT INTO backfill(name)
+            VALUES (?)
+            ON CONFLICT (name) DO NOTHING
+            """, backfill.name());
+      progress.maxId = jdbcTemplate.queryForObject(
+            "SELECT coalesce(max(id), 0) FROM " + backfill.table(), Long.class);
+      log.info("backfilling {} up to id {}", backfill.name(), progress.maxId);
+
+      while (!stopping) {
+         Batch batch;
+         try {
+            batch = transactionTemplate.execute(status -> batch(backfill, progress));
+         } catch (PessimisticLockingFailureException e) {
+            // the rows are busy, the batch is tried again after the pause
+            log.debug("backfill {} waited too long for a lock", backfill.name(), e);
+            batch = Batch.LOCKED;
+         }
+         if (batch == Batch.COMPLETED) {
+            log.info("backfilled {}, {} rows", backfill.name(), progress.backfilledRows);
+            return true;
+         }
+         try {
+            Thread.sleep(properties.pause());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+         }
+      }
+      return false;
+   }
+
+   private Batch batch(Backfill backfill, Progress progress) {
+      // a batch gives up on a lock, that traffic would otherwise queue behind, rather than wait
+      jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', ?, true)", String.class,
+            properties.lockTimeout().toMillis() + "ms");
+      List<Long> lastIds = jdbcTemplate.queryForList("""
+            SELECT CASE WHEN completed_at IS NULL THEN last_id END
+            FROM backfill
+            WHERE name = ?
+            FOR UPDATE SKIP LOCKED
+            """, Long.class, backfill.name());
+      if (lastIds.isEmpty()) {
+         return Batch.LOCKED;
+      }
+      Long lastId = lastIds.get(0);
+      if (lastId == null) {
+         progress.completed = true;
+         return Batch.COMPLETED;
+      }
+
+      Long to = jdbcTemplate.queryForObject("""
+            SELECT max(id)
+            FROM (SELECT id FROM %s WHERE id > ? ORDER BY id LIMIT ?) batch
+            """.formatted(backfill.table()), Long.class, lastId, properties.batchSize());
+      if (to == null) {
+         jdbcTemplate.update("""
+               UPDATE backfill
+               SET completed_at = now(), updated_at = now()
+               WHERE name = ?
+               """, backfill.name());
+         progress.completed = true;
+         return Batch.COMPLETED;
+      }
+
+      int rows = jdbcTemplate.update(backfill.sql(), lastId, to);
+      Long backfilledRows = jdbcTemplate.queryForObject("""
+            UPDATE backfill
+            SET last_id = ?, backfilled_rows = backfilled_rows + ?, updated_at = now()
+            WHERE name = ?
+            RETURNING backfilled_rows
+            """, Long.class, to, rows, backfill.name());
+      progress.lastId = to;
+      progress.backfilledRows = backfilledRows;
+      return Batch.BACKFILLED;
+   }
+}
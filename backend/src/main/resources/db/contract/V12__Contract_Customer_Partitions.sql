@@ -0,0 +1,97 @@
+-- contract: customer_partitioned replaces customer. This location is only added to
+-- spring.flyway.locations once the customer_partitioned backfill has completed; the copy
+-- trigger of V10 has kept every write since in step, so customer is only locked for the
+-- drop and the renames. It is numbered after every migration there was when it was
+-- written; once a later one has been applied, it only runs with spring.flyway.out-of-order
+LOCK TABLE customer IN ACCESS EXCLUSIVE MODE;
+
+DO
+$$
+    BEGIN
+        IF EXISTS (SELECT 1 FROM customer)
+            AND NOT EXISTS (SELECT 1
+                            FROM backfill
+                            WHERE name = 'customer_partitioned'
+                              AND completed_at IS NOT NULL) THEN
+            RAISE EXCEPTION 'the customer_partitioned backfill has not completed yet';
+        END IF;
+    END
+$$;
+
+-- an empty customer had nothing to backfill, and the backfill must not run against the
+-- swapped tables
+INSERT INTO backfill (name, completed_at)
+VALUES ('customer_partitioned', now())
+ON CONFLICT (name) DO UPDATE
+    SET completed_at = coalesce(backfill.completed_at, EXCLUDED.completed_at),
+        updated_at   = now();
+
+-- the sequence would be dropped with the table that owns it
+ALTER SEQUENCE customer_id_seq OWNED BY NONE;
+DROP TABLE customer;
+DROP FUNCTION customer_copy_to_partitioned();
+ALTER TABLE customer_partitioned
+    RENAME TO customer;
+ALTER TABLE customer
+    RENAME CONSTRAINT customer_partitioned_pkey TO customer_pkey;
+ALTER SEQUENCE customer_id_seq OWNED BY customer.id;
+ALTER TABLE customer_email
+    RENAME CONSTRAINT customer_email_pkey TO customer_email_unique;
+
+ALTER INDEX customer_partitioned_name_trgm_idx RENAME TO customer_name_trgm_idx;
+ALTER INDEX customer_partitioned_email_pattern_idx RENAME TO customer_email_pattern_idx;
+ALTER INDEX customer_partitioned_name_id_idx RENAME TO customer_name_id_idx;
+ALTER INDEX customer_partitioned_age_id_idx RENAME TO customer_age_id_idx;
+
+CREATE TRIGGER customer_set_updated_at
+    BEFORE UPDATE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_set_updated_at();
+
+CREATE TRIGGER customer_email_notify
+    AFTER INSERT OR UPDATE OF email
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_email_notify();
+
+CREATE TRIGGER customer_changed_notify
+    AFTER UPDATE OR DELETE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_changed_notify();
+
+-- keeps customer_email in step with every writer, COPY included. An insert may have
+-- claimed its email already, in a CTE that does ON CONFLICT on customer_email; anything
+-- else claims it here and fails like the old unique constraint did when it is taken
+CREATE FUNCTION customer_claim_email() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'UPDATE' AND OLD.email = NEW.email THEN
+        RETURN NEW;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE
+        FROM customer_email
+        WHERE email = OLD.email
+          AND customer_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        IF NOT EXISTS (SELECT 1
+                       FROM customer_email
+                       WHERE email = NEW.email
+                         AND customer_id = NEW.id) THEN
+            INSERT INTO customer_email (email, customer_id)
+            VALUES (NEW.email, NEW.id);
+        END IF;
+        RETURN NEW;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_claim_email
+    BEFORE INSERT OR DELETE OR UPDATE OF email
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_claim_email();
@@ -0,0 +1,119 @@
+-- expand: the partitioned customer table is created next to customer, which stays the table
+-- the application uses. A trigger copies every write across, and the rows that were there
+-- before are copied over by the time db/contract swaps the tables. Nothing here rewrites or
+-- copies customer.
+-- A partitioned table's unique indexes have to include its partition key, so email
+-- uniqueness moves to a table of its own, partitioned by the email; each partition's
+-- primary key is a small B-tree instead of one index over every customer
+CREATE TABLE customer_email
+(
+    email       TEXT   NOT NULL,
+    customer_id BIGINT NOT NULL,
+    CONSTRAINT customer_email_pkey PRIMARY KEY (email)
+) PARTITION BY HASH (email);
+
+-- ids are spread over the partitions by their hash
+CREATE TABLE customer_partitioned
+(
+    id         BIGINT      NOT NULL DEFAULT nextval('customer_id_seq'),
+    name       TEXT        NOT NULL,
+    email      TEXT        NOT NULL,
+    age        INT         NOT NULL,
+    version    BIGINT      NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT customer_partitioned_pkey PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+-- a partition count is fixed once chosen, 16 keeps each one at a few million rows
+-- at 100M customers
+DO
+$$
+    BEGIN
+        FOR remainder IN 0..15
+            LOOP
+                EXECUTE format('CREATE TABLE customer_p%s PARTITION OF customer_partitioned '
+                                   'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', remainder, remainder);
+                EXECUTE format('CREATE TABLE customer_email_p%s PARTITION OF customer_email '
+                                   'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', remainder, remainder);
+            END LOOP;
+    END
+$$;
+
+-- the indexes of V5, one per partition, built while the tables are still empty
+CREATE INDEX customer_partitioned_name_trgm_idx
+    ON customer_partitioned USING gin (name gin_trgm_ops);
+
+CREATE INDEX customer_partitioned_email_pattern_idx
+    ON customer_partitioned (email text_pattern_ops);
+
+CREATE INDEX customer_partitioned_name_id_idx
+    ON customer_partitioned (name, id);
+
+CREATE INDEX customer_partitioned_age_id_idx
+    ON customer_partitioned (age, id);
+
+-- until the contract customer's own unique constraint decides who owns an email, so a
+-- claim is taken over from whichever id holds it and freed by the email alone. That also
+-- clears a claim an insert made for an email whose owner wasn't copied yet
+CREATE FUNCTION customer_copy_to_partitioned() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE
+        FROM customer_email
+        WHERE email = OLD.email;
+        DELETE
+        FROM customer_partitioned
+        WHERE id = OLD.id;
+        RETURN NULL;
+    END IF;
+    INSERT INTO customer_partitioned (id, name, email, age, version, updated_at)
+    VALUES (NEW.id, NEW.name, NEW.email, NEW.age, NEW.version, NEW.updated_at)
+    ON CONFLICT (id) DO UPDATE
+        SET name       = EXCLUDED.name,
+            email      = EXCLUDED.email,
+            age        = EXCLUDED.age,
+            version    = EXCLUDED.version,
+            updated_at = EXCLUDED.updated_at;
+    IF TG_OP = 'UPDATE' THEN
+        IF OLD.email = NEW.email THEN
+            RETURN NULL;
+        END IF;
+        DELETE
+        FROM customer_email
+        WHERE email = OLD.email;
+    END IF;
+    INSERT INTO customer_email (email, customer_id)
+    VALUES (NEW.email, NEW.id)
+    ON CONFLICT (email) DO UPDATE
+        SET customer_id = EXCLUDED.customer_id
+    WHERE customer_email.customer_id <> EXCLUDED.customer_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_copy_to_partitioned
+    AFTER INSERT OR UPDATE OR DELETE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_copy_to_partitioned();
+
+-- an insert that may find its email taken claims it in customer_email first; the customer
+-- insert's ON CONFLICT DO NOTHING covers an owner that isn't copied yet, while customer
+-- still has its unique email constraint. The function is for callers whose sql has to be
+-- a plain SELECT
+CREATE FUNCTION customer_insert_if_email_available(name TEXT, email TEXT, age INT)
+    RETURNS TABLE (id BIGINT) AS
+$$
+WITH claimed AS (
+    INSERT INTO customer_email (email, customer_id)
+        VALUES ($2, nextval('customer_id_seq'))
+        ON CONFLICT (email) DO NOTHING
+        RETURNING email, customer_id)
+INSERT
+INTO customer (id, name, email, age)
+SELECT customer_id, $1, claimed.email, $3
+FROM claimed
+ON CONFLICT DO NOTHING
+RETURNING customer.id
+$$ LANGUAGE sql;
@@ -0,0 +1,12 @@
+-- progress of the batched backfills BackfillRunner runs after startup. A batch updates
+-- this row in its own transaction, so a restarted run carries on after the last
+-- committed batch
+CREATE TABLE backfill
+(
+    name            TEXT        NOT NULL,
+    last_id         BIGINT      NOT NULL DEFAULT 0,
+    backfilled_rows BIGINT      NOT NULL DEFAULT 0,
+    completed_at    TIMESTAMPTZ,
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT backfill_pkey PRIMARY KEY (name)
+);
@@ -0,0 +1,7 @@
+-- ids are handed out in blocks of 50, to hibernate's pooled optimizer, but every other
+-- nextval uses up a whole block too, so the sequence is allowed past INTEGER. Widening
+-- the id column itself would rewrite customer under an exclusive lock, it is left to a
+-- table swap
+ALTER SEQUENCE customer_id_seq
+    AS BIGINT
+    INCREMENT BY 50;
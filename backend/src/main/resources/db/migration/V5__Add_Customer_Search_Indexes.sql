@@ -0,0 +1,16 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- name substring search, ILIKE '%...%' goes through the trigrams
+CREATE INDEX IF NOT EXISTS customer_name_trgm_idx
+    ON customer USING gin (name gin_trgm_ops);
+
+-- email prefix search, LIKE '...%' needs the pattern ops whatever the collation
+CREATE INDEX IF NOT EXISTS customer_email_pattern_idx
+    ON customer (email text_pattern_ops);
+
+-- sorted pages, id breaks ties
+CREATE INDEX IF NOT EXISTS customer_name_id_idx
+    ON customer (name, id);
+
+CREATE INDEX IF NOT EXISTS customer_age_id_idx
+    ON customer (age, id);
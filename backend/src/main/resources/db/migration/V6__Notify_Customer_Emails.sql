@@ -0,0 +1,15 @@
+-- every taken email is notified to the instances' email filters, whichever writer took
+-- it: the jdbc and jpa inserts and updates, another instance, COPY or a migration
+CREATE FUNCTION customer_email_notify() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('customer_email', NEW.email);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_email_notify
+    AFTER INSERT OR UPDATE OF email
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_email_notify();
@@ -0,0 +1,19 @@
+-- constant defaults, so existing rows are not rewritten
+ALTER TABLE customer
+    ADD COLUMN version    BIGINT      NOT NULL DEFAULT 0,
+    ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- version is bumped by the writers themselves, updated_at is kept here for every writer
+CREATE FUNCTION customer_set_updated_at() RETURNS trigger AS
+$$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_set_updated_at
+    BEFORE UPDATE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_set_updated_at();
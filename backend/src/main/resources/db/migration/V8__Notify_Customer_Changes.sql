@@ -0,0 +1,15 @@
+-- every changed or deleted customer is notified to the instances' customer caches, whichever
+-- writer changed it: the jdbc and jpa updates, another instance or a migration
+CREATE FUNCTION customer_changed_notify() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('customer_changed', OLD.id::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_changed_notify
+    AFTER UPDATE OR DELETE
+    ON customer
+    FOR EACH ROW
+EXECUTE FUNCTION customer_changed_notify();
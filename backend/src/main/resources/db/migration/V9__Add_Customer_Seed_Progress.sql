@@ -0,0 +1,11 @@
+-- how many customers the seed profile has generated, so the next run carries on at that
+-- index without counting them. A batch updates the one row in its own transaction
+CREATE TABLE customer_seed
+(
+    id        BOOLEAN NOT NULL DEFAULT TRUE,
+    generated BIGINT  NOT NULL DEFAULT 0,
+    CONSTRAINT customer_seed_pkey PRIMARY KEY (id),
+    CONSTRAINT customer_seed_one_row CHECK (id)
+);
+
+INSERT INTO customer_seed DEFAULT VALUES;
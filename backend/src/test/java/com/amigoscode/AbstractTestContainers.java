@@ -1,10 +1,13 @@
 package com.amigoscode;
 
 import com.github.javafaker.Faker;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
 import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.BeforeAll;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -38,6 +41,16 @@ public abstract class AbstractTestContainers {
       registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
       registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
       registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+      registry.add("spring.r2dbc.url", AbstractTestContainers::getR2dbcUrl);
+      registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+      registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
+   }
+
+   private static String getR2dbcUrl() {
+      return "r2dbc:postgresql://%s:%s/%s".formatted(
+            postgreSQLContainer.getHost(),
+            postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+            postgreSQLContainer.getDatabaseName());
    }
 
    private static DataSource getDataSource() {
@@ -53,6 +66,14 @@ public abstract class AbstractTestContainers {
       return new JdbcTemplate(getDataSource());
    }
 
+   protected static DatabaseClient getDatabaseClient() {
+      ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(getR2dbcUrl()).mutate()
+            .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+            .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+            .build();
+      return DatabaseClient.create(ConnectionFactories.get(options));
+   }
+
    protected static final Faker FAKER = new Faker();
 }
 
@@ -0,0 +1,58 @@
+package com.amigoscode;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerBulkRegistrationResult;
+import com.amigoscode.customer.CustomerBulkRegistrationResult.Status;
+import com.amigoscode.customer.CustomerPage;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CborConfigTest {
+
+   private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+   private final ObjectMapper cborMapper = new CborConfig()
+         .cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json())
+         .getObjectMapper();
+
+   @Test
+   void customerPageHasSameContentAsJson() throws IOException {
+      //Given
+      Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      customer.setVersion(3L);
+      CustomerPage page = new CustomerPage(List.of(customer, new Customer()), "aWQ6Mg");
+
+      //When
+      byte[] cbor = cborMapper.writeValueAsBytes(page);
+
+      //Then
+      assertThat(cborMapper.readTree(cbor)).isEqualTo(jsonMapper.readTree(jsonMapper.writeValueAsBytes(page)));
+      assertThat(cbor.length).isLessThan(jsonMapper.writeValueAsBytes(page).length);
+   }
+
+   @Test
+   void requestsReadTheSameAsJson() throws IOException {
+      //Given
+      CustomerRegistrationRequest registration = new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19);
+      CustomerUpdateRequest update = new CustomerUpdateRequest(null, "alexandro@gmail.com", null);
+      CustomerBulkRegistrationResult result =
+            new CustomerBulkRegistrationResult(0, "alex@gmail.com", Status.CREATED, null);
+
+      //When
+      byte[] registrationCbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(jsonMapper.writeValueAsBytes(registration)));
+      byte[] updateCbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(jsonMapper.writeValueAsBytes(update)));
+
+      //Then
+      assertThat(cborMapper.readValue(registrationCbor, CustomerRegistrationRequest.class)).isEqualTo(registration);
+      assertThat(cborMapper.readValue(updateCbor, CustomerUpdateRequest.class)).isEqualTo(update);
+      assertThat(cborMapper.readValue(cborMapper.writeValueAsBytes(result), CustomerBulkRegistrationResult.class))
+            .isEqualTo(result);
+   }
+}
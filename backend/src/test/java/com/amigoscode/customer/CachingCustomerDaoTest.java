@@ -0,0 +1,260 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDaoTest {
+
+   @Mock
+   private CustomerDao delegate;
+   @Mock
+   private CustomerEmailFilter emails;
+   private CachingCustomerDao underTest;
+
+   @BeforeEach
+   void setUp() {
+      underTest = new CachingCustomerDao(delegate, emails,
+            new CustomerCacheProperties(100, Duration.ofMinutes(5), 0.01, DataSize.ofMegabytes(1)));
+      underTest.listening();
+   }
+
+   @Test
+   void selectCustomerByIdReadsThroughOnce() {
+      //Given
+      long id = 1;
+      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+      //When
+      Optional<Customer> first = underTest.selectCustomerById(id);
+      Optional<Customer> second = underTest.selectCustomerById(id);
+
+      //Then
+      assertThat(first).hasValue(customer);
+      assertThat(second).hasValue(customer);
+      verify(delegate, times(1)).selectCustomerById(id);
+      assertThat(underTest.stats().hitCount()).isEqualTo(1);
+      assertThat(underTest.stats().missCount()).isEqualTo(1);
+   }
+
+   @Test
+   void selectCustomerByIdDoesNotCacheMissingCustomer() {
+      //Given
+      long id = 1;
+      when(delegate.selectCustomerById(id)).thenReturn(Optional.empty());
+
+      //When
+      underTest.selectCustomerById(id);
+      Optional<Customer> actual = underTest.selectCustomerById(id);
+
+      //Then
+      assertThat(actual).isEmpty();
+      verify(delegate, times(2)).selectCustomerById(id);
+   }
+
+   @Test
+   void selectCustomerByIdReadsThroughEveryTimeWhileNotListening() {
+      //Given
+      long id = 1;
+      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+      underTest.selectCustomerById(id);
+
+      //When
+      underTest.stopped();
+      underTest.selectCustomerById(id);
+      Optional<Customer> actual = underTest.selectCustomerById(id);
+
+      //Then
+      assertThat(actual).hasValue(customer);
+      verify(delegate, times(3)).selectCustomerById(id);
+   }
+
+   @Test
+   void notifiedChangeEvictsCachedCustomer() {
+      //Given
+      long id = 1;
+      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      Customer changed = new Customer(id, "Alex", "alex@amigoscode.com", 19);
+      when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer), Optional.of(changed));
+      underTest.selectCustomerById(id);
+
+      //When
+      underTest.notified(String.valueOf(id));
+      Optional<Customer> actual = underTest.selectCustomerById(id);
+
+      //Then
+      assertThat(actual).hasValue(changed);
+      verify(delegate, times(2)).selectCustomerById(id);
+   }
+
+   @Test
+   void mutatingReturnedCustomerDoesNotChangeCachedCustomer() {
+      //Given
+      long id = 1;
+      when(delegate.selectCustomerById(id))
+            .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 19)));
+
+      //When
+      underTest.selectCustomerById(id).orElseThrow().setName("Foo");
+
+      //Then
+      assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c ->
+            assertThat(c.getName()).isEqualTo("Alex"));
+   }
+
+   @Test
+   void updateCustomerEvictsCachedCustomer() {
+      //Given
+      long id = 1;
+      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      Customer update = new Customer(id, "Foo", "alex@gmail.com", 19);
+      when(delegate.selectCustomerById(id))
+            .thenReturn(Optional.of(customer))
+            .thenReturn(Optional.of(update));
+      underTest.selectCustomerById(id);
+
+      //When
+      underTest.updateCustomer(update);
+
+      //Then
+      verify(delegate).updateCustomer(update);
+      assertThat(underTest.selectCustomerById(id)).hasValue(update);
+   }
+
+   @Test
+   void updateCustomerEvictsCachedCustomerWhenVersionIsStale() {
+      //Given
+      long id = 1;
+      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+      when(delegate.updateCustomer(any())).thenThrow(new OptimisticLockingFailureException("stale"));
+      underTest.selectCustomerById(id);
+
+      //When
+      assertThatThrownBy(() -> underTest.updateCustomer(customer))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+
+      //Then
+      underTest.selectCustomerById(id);
+      verify(delegate, times(2)).selectCustomerById(id);
+   }
+
+   @Test
+   void deleteCustomerByIdEvictsCachedCustomer() {
+      //Given
+      long id = 1;
+      when(delegate.selectCustomerById(id))
+            .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 19)))
+            .thenReturn(Optional.empty());
+      underTest.selectCustomerById(id);
+
+      //When
+      underTest.deleteCustomerById(id);
+
+      //Then
+      verify(delegate).deleteCustomerById(id);
+      assertThat(underTest.selectCustomerById(id)).isEmpty();
+   }
+
+   @Test
+   void existsPersonWithIdUsesCachedCustomer() {
+      //Given
+      long id = 1;
+      when(delegate.selectCustomerById(id))
+            .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 19)));
+      underTest.selectCustomerById(id);
+
+      //When
+      boolean actual = underTest.existsPersonWithId(id);
+
+      //Then
+      assertThat(actual).isTrue();
+      verify(delegate, never()).existsPersonWithId(id);
+   }
+
+   @Test
+   void insertCustomerDelegates() {
+      //Given
+      Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+
+      //When
+      underTest.insertCustomer(customer);
+
+      //Then
+      verify(delegate).insertCustomer(customer);
+   }
+
+   @Test
+   void bindToPublishesCacheStats() {
+      //Given
+      long id = 1;
+      when(delegate.selectCustomerById(id))
+            .thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 19)));
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      underTest.bindTo(registry);
+
+      //When
+      underTest.selectCustomerById(id);
+      underTest.selectCustomerById(id);
+
+      //Then
+      assertThat(registry.get("cache.gets").tag("cache", "customersById").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+      assertThat(registry.get("cache.gets").tag("cache", "customersById").tag("result", "miss")
+            .functionCounter().count()).isEqualTo(1);
+   }
+
+   @Test
+   void existsPersonWithEmailSkipsDelegateForFreeEmail() {
+      //Given
+      when(emails.isFree("jamila@gmail.com")).thenReturn(true);
+
+      //When
+      boolean actual = underTest.existsPersonWithEmail("jamila@gmail.com");
+
+      //Then
+      assertThat(actual).isFalse();
+      verify(delegate, never()).existsPersonWithEmail("jamila@gmail.com");
+   }
+
+   @Test
+   void existsPersonWithEmailAsksDelegateWhenFilterMightContainEmail() {
+      //Given
+      when(emails.isFree("alex@gmail.com")).thenReturn(false);
+      when(delegate.existsPersonWithEmail("alex@gmail.com")).thenReturn(true);
+
+      //When
+      boolean actual = underTest.existsPersonWithEmail("alex@gmail.com");
+
+      //Then
+      assertThat(actual).isTrue();
+   }
+
+   @Test
+   void insertCustomerPutsEmailInFilter() {
+      //Given
+      Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+      when(delegate.insertCustomer(customer)).thenReturn(Optional.of(1L));
+
+      //When
+      underTest.insertCustomer(customer);
+
+      //Then
+      verify(emails).taken("alex@gmail.com");
+   }
+}
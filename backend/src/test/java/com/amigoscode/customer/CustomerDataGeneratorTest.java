@@ -0,0 +1,109 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestContainers;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerDataGeneratorTest extends AbstractTestContainers {
+
+   private static JdbcTemplate jdbcTemplate;
+   private CustomerDataGenerator underTest;
+
+   @BeforeAll
+   static void setUpJdbcTemplate() {
+      jdbcTemplate = getJdbcTemplate();
+   }
+
+   @AfterAll
+   static void closeJdbcTemplate() {
+      ((HikariDataSource) jdbcTemplate.getDataSource()).close();
+   }
+
+   @BeforeEach
+   void setUp() {
+      underTest = new CustomerDataGenerator(jdbcTemplate, 42, 2);
+   }
+
+   @Test
+   void customerOnlyDependsOnSeedAndIndex() {
+      //Given
+      CustomerDataGenerator sameSeed = new CustomerDataGenerator(jdbcTemplate, 42, 1000);
+
+      //When
+      Customer actual = underTest.customer(7);
+
+      //Then
+      assertThat(actual).isEqualTo(sameSeed.customer(7));
+      assertThat(actual.getEmail()).endsWith(".7@" + CustomerDataGenerator.EMAIL_DOMAIN);
+      assertThat(actual.getAge()).isBetween(16, 98);
+      assertThat(underTest.customer(8).getEmail()).isNotEqualTo(actual.getEmail());
+   }
+
+   @Test
+   void generateInsertsOnlyTheMissingCustomers() {
+      //Given
+      long generated = underTest.generatedCustomers();
+
+      //When
+      long inserted = underTest.generate(generated + 5);
+      long insertedAgain = underTest.generate(generated + 5);
+
+      //Then
+      assertThat(inserted).isEqualTo(5);
+      assertThat(insertedAgain).isZero();
+      assertThat(underTest.generatedCustomers()).isEqualTo(generated + 5);
+      List<Long> ids = jdbcTemplate.queryForList("""
+            SELECT id
+            FROM customer
+            WHERE email LIKE ?
+            ORDER BY id DESC
+            LIMIT 5
+            """, Long.class, "%@" + CustomerDataGenerator.EMAIL_DOMAIN);
+      Long sequence = jdbcTemplate.queryForObject("SELECT last_value FROM customer_id_seq", Long.class);
+      assertThat(ids).doesNotHaveDuplicates().allSatisfy(id -> assertThat(id).isLessThanOrEqualTo(sequence));
+   }
+
+   @Test
+   void generateCarriesOnFromTheRecordedProgress() {
+      //Given
+      long generated = underTest.generatedCustomers();
+      jdbcTemplate.update("UPDATE customer_seed SET generated = ?", generated + 3);
+
+      //When
+      long inserted = underTest.generate(generated + 4);
+
+      //Then
+      assertThat(inserted).isEqualTo(1);
+      assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM customer WHERE email = ?", Long.class,
+            underTest.customer(generated + 3).getEmail())).isEqualTo(1);
+   }
+
+   @Test
+   void insertsAfterGeneratingGetFreshIds() {
+      //Given
+      underTest.generate(underTest.generatedCustomers() + 3);
+      Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM customer", Long.class);
+      CustomerJDBCDataAccessService customerDao =
+            new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+
+      //When
+      Optional<Long> actual = customerDao.insertCustomer(new Customer(
+            FAKER.name().fullName(),
+            FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+            20));
+
+      //Then
+      assertThat(actual).hasValueSatisfying(id -> assertThat(id).isGreaterThan(maxId));
+   }
+}
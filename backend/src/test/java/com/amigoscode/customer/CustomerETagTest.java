@@ -0,0 +1,55 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.PreconditionFailed;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerETagTest {
+
+   @Test
+   void customerETagIsItsVersion() {
+      //Given
+      Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      customer.setVersion(4L);
+
+      //When
+      String actual = CustomerETag.of(customer);
+
+      //Then
+      assertThat(actual).isEqualTo("\"4\"");
+      assertThat(CustomerETag.version(actual)).isEqualTo(4L);
+   }
+
+   @Test
+   void pageETagChangesWithAnyVersion() {
+      //Given
+      Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      customer.setVersion(0L);
+      String before = CustomerETag.of(new CustomerPage(List.of(customer), null));
+
+      //When
+      customer.setVersion(1L);
+      String after = CustomerETag.of(new CustomerPage(List.of(customer), null));
+
+      //Then
+      assertThat(before).startsWith("W/\"").isNotEqualTo(after);
+   }
+
+   @Test
+   void ifMatchAnyHasNoVersion() {
+      assertThat(CustomerETag.version(null)).isNull();
+      assertThat(CustomerETag.version("*")).isNull();
+   }
+
+   @Test
+   void willThrowWhenIfMatchIsWeakOrMalformed() {
+      assertThatThrownBy(() -> CustomerETag.version("W/\"4\""))
+            .isInstanceOf(PreconditionFailed.class);
+      assertThatThrownBy(() -> CustomerETag.version("\"4\", \"5\""))
+            .isInstanceOf(PreconditionFailed.class);
+   }
+}
@@ -0,0 +1,110 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestContainers;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerEmailFilterTest extends AbstractTestContainers {
+
+   private static JdbcTemplate jdbcTemplate;
+   private CustomerEmailFilter underTest;
+   private CustomerNotifications notifications;
+
+   @BeforeAll
+   static void setUpJdbcTemplate() {
+      jdbcTemplate = getJdbcTemplate();
+   }
+
+   @AfterAll
+   static void closeJdbcTemplate() {
+      ((HikariDataSource) jdbcTemplate.getDataSource()).close();
+   }
+
+   @BeforeEach
+   void setUp() {
+      DataSourceProperties dataSource = new DataSourceProperties();
+      dataSource.setUrl(postgreSQLContainer.getJdbcUrl());
+      dataSource.setUsername(postgreSQLContainer.getUsername());
+      dataSource.setPassword(postgreSQLContainer.getPassword());
+      underTest = new CustomerEmailFilter(jdbcTemplate,
+            new CustomerCacheProperties(100, Duration.ofMinutes(5), 0.01, DataSize.ofMegabytes(1)));
+      notifications = new CustomerNotifications(dataSource, List.of(underTest));
+   }
+
+   @AfterEach
+   void tearDown() {
+      notifications.stop();
+   }
+
+   @Test
+   void isFreeOnlyOnceListening() {
+      //Given
+      String email = UUID.randomUUID() + "@amigoscode.com";
+      assertThat(underTest.isFree(email)).isFalse();
+
+      //When
+      notifications.start();
+
+      //Then
+      assertThat(eventually(() -> underTest.isFree(email))).isTrue();
+   }
+
+   @Test
+   void isFreeKnowsEmailsLoadedOnStart() {
+      //Given
+      String email = UUID.randomUUID() + "@amigoscode.com";
+      jdbcTemplate.update("INSERT INTO customer(name, email, age) VALUES ('Alex', ?, 19)", email);
+      String free = UUID.randomUUID() + "@amigoscode.com";
+
+      //When
+      notifications.start();
+
+      //Then
+      assertThat(eventually(() -> underTest.isFree(free))).isTrue();
+      assertThat(underTest.isFree(email)).isFalse();
+   }
+
+   @Test
+   void isFreeLearnsEmailsTakenByOtherWriters() {
+      //Given
+      notifications.start();
+      String email = UUID.randomUUID() + "@amigoscode.com";
+      assertThat(eventually(() -> underTest.isFree(email))).isTrue();
+
+      //When
+      jdbcTemplate.update("INSERT INTO customer(name, email, age) VALUES ('Alex', ?, 19)", email);
+
+      //Then
+      assertThat(eventually(() -> !underTest.isFree(email))).isTrue();
+   }
+
+   private static boolean eventually(BooleanSupplier condition) {
+      long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (System.nanoTime() < deadline) {
+         if (condition.getAsBoolean()) {
+            return true;
+         }
+         try {
+            Thread.sleep(20);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+         }
+      }
+      return false;
+   }
+}
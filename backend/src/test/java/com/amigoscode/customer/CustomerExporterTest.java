@@ -0,0 +1,86 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExporterTest {
+
+   @Mock
+   private CustomerService customerService;
+   private CustomerExporter underTest;
+
+   @BeforeEach
+   void setUp() {
+      underTest = new CustomerExporter(customerService, new ObjectMapper());
+   }
+
+   @Test
+   void canExportNdjson() throws IOException {
+      //Given
+      givenCustomers(
+            new Customer(1L, "Alex", "alex@gmail.com", 19),
+            new Customer(2L, "Jamila", "jamila@gmail.com", 21));
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+      //When
+      underTest.export(CustomerExportFormat.NDJSON, outputStream);
+
+      //Then
+      assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("""
+            {"id":1,"name":"Alex","email":"alex@gmail.com","age":19}
+            {"id":2,"name":"Jamila","email":"jamila@gmail.com","age":21}
+            """);
+   }
+
+   @Test
+   void canExportCsv() throws IOException {
+      //Given
+      givenCustomers(
+            new Customer(1L, "Alex", "alex@gmail.com", 19),
+            new Customer(2L, "Smith, \"Jo\"", "jo@gmail.com", 21));
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+      //When
+      underTest.export(CustomerExportFormat.CSV, outputStream);
+
+      //Then
+      assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("""
+            id,name,email,age
+            1,Alex,alex@gmail.com,19
+            2,"Smith, ""Jo""\",jo@gmail.com,21
+            """);
+   }
+
+   @Test
+   void willThrowWhenExportFormatIsUnsupported() {
+      assertThatThrownBy(() -> CustomerExportFormat.from("xml"))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("unsupported export format [xml]");
+   }
+
+   @SuppressWarnings("unchecked")
+   private void givenCustomers(Customer... customers) {
+      doAnswer(invocation -> {
+         Consumer<Customer> consumer = invocation.getArgument(0);
+         List.of(customers).forEach(consumer);
+         return null;
+      }).when(customerService).exportCustomers(any(Consumer.class));
+   }
+}
@@ -0,0 +1,222 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerInMemoryDataAccessServiceTest {
+
+   private CustomerInMemoryDataAccessService underTest;
+
+   @BeforeEach
+   void setUp() {
+      underTest = new CustomerInMemoryDataAccessService();
+   }
+
+   @Test
+   void insertCustomerAssignsIdAndIndexesEmail() {
+      //When
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+      //Then
+      Long id = underTest.selectAllCustomers().get(0).getId();
+      assertThat(underTest.selectCustomerById(id))
+            .hasValue(new Customer(id, "Alex", "alex@gmail.com", 19));
+      assertThat(underTest.existsPersonWithId(id)).isTrue();
+      assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isTrue();
+   }
+
+   @Test
+   void searchCustomersFiltersSortsAndContinuesAfterPosition() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      underTest.insertCustomer(new Customer("Alexa", "alexa@gmail.com", 35));
+      underTest.insertCustomer(new Customer("Malex", "malex@gmail.com", 28));
+      underTest.insertCustomer(new Customer("Jamila", "alex.jamila@gmail.com", 25));
+
+      //When
+      List<Customer> actual = underTest.searchCustomers(new CustomerSearchCriteria(
+            "ALE", "al", 18, 30, CustomerSortField.AGE, true, null, 10));
+
+      //Then
+      assertThat(actual).extracting(Customer::getName).containsExactly("Alex");
+      assertThat(underTest.searchCustomers(new CustomerSearchCriteria(
+            null, null, null, null, CustomerSortField.NAME, false, new Customer(2L, "Alexa", null, null), 2)))
+            .extracting(Customer::getName).containsExactly("Jamila", "Malex");
+   }
+
+   @Test
+   void insertCustomerReturnsEmptyWhenEmailTaken() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+      //When
+      Optional<Long> actual = underTest.insertCustomer(new Customer("Ali", "alex@gmail.com", 20));
+
+      //Then
+      assertThat(actual).isEmpty();
+      assertThat(underTest.selectAllCustomers()).hasSize(1);
+   }
+
+   @Test
+   void selectCustomersPagesInIdOrder() {
+      //Given
+      IntStream.range(0, 5).forEach(i ->
+            underTest.insertCustomer(new Customer("Alex", "alex" + i + "@gmail.com", 19)));
+      Long afterId = underTest.selectCustomers(0L, 1).get(0).getId();
+
+      //When
+      List<Customer> actual = underTest.selectCustomers(afterId, 2);
+
+      //Then
+      assertThat(actual).extracting(Customer::getId).containsExactly(afterId + 1, afterId + 2);
+   }
+
+   @Test
+   void updateCustomerReplacesCustomerAndReindexesEmail() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      Long id = underTest.selectAllCustomers().get(0).getId();
+
+      Customer update = new Customer();
+      update.setId(id);
+      update.setEmail("alexandro@gmail.com");
+
+      //When
+      Optional<Customer> actual = underTest.updateCustomer(update);
+
+      //Then
+      assertThat(actual).hasValue(new Customer(id, "Alex", "alexandro@gmail.com", 19));
+      assertThat(underTest.selectAllCustomers()).hasSize(1);
+      assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isFalse();
+      assertThat(underTest.existsPersonWithEmail("alexandro@gmail.com")).isTrue();
+   }
+
+   @Test
+   void willThrowWhenUpdatingToTakenEmail() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 20));
+      Long id = underTest.selectAllCustomers().get(0).getId();
+
+      Customer update = new Customer();
+      update.setId(id);
+      update.setEmail("ali@gmail.com");
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(DuplicateKeyException.class);
+      assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c ->
+            assertThat(c.getEmail()).isEqualTo("alex@gmail.com"));
+   }
+
+   @Test
+   void willThrowWhenUpdatingFromStaleVersion() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      Customer read = underTest.selectAllCustomers().get(0);
+      Customer first = underTest.selectCustomerById(read.getId()).orElseThrow();
+      first.setName("Alexandro");
+      underTest.updateCustomer(first);
+
+      read.setEmail("alexandro@gmail.com");
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(read))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+      assertThat(underTest.selectCustomerById(read.getId()))
+            .hasValue(new Customer(read.getId(), "Alexandro", "alex@gmail.com", 19));
+      assertThat(underTest.existsPersonWithEmail("alexandro@gmail.com")).isFalse();
+   }
+
+   @Test
+   void willThrowWhenUpdateChangesNothing() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      Long id = underTest.selectAllCustomers().get(0).getId();
+
+      Customer update = new Customer();
+      update.setId(id);
+      update.setName("Alex");
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("no data changes found");
+      assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c ->
+            assertThat(c.getVersion()).isZero());
+   }
+
+   @Test
+   void updateCustomerReturnsEmptyWhenCustomerDoesNotExist() {
+      //Given
+      Customer update = new Customer();
+      update.setId(-1L);
+      update.setName("Foo");
+
+      //When
+      Optional<Customer> actual = underTest.updateCustomer(update);
+
+      //Then
+      assertThat(actual).isEmpty();
+   }
+
+   @Test
+   void deleteCustomerByIdRemovesIndexes() {
+      //Given
+      underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+      Long id = underTest.selectAllCustomers().get(0).getId();
+
+      //When
+      underTest.deleteCustomerById(id);
+
+      //Then
+      assertThat(underTest.selectCustomerById(id)).isEmpty();
+      assertThat(underTest.existsPersonWithId(id)).isFalse();
+      assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isFalse();
+      assertThat(underTest.selectAllCustomers()).isEmpty();
+   }
+
+   @Test
+   void concurrentInsertsAndUpdatesKeepIndexesConsistent() throws InterruptedException {
+      //Given
+      int threads = 8;
+      int customersPerThread = 1_000;
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+      //When
+      for (int t = 0; t < threads; t++) {
+         int thread = t;
+         executor.execute(() -> {
+            for (int i = 0; i < customersPerThread; i++) {
+               underTest.insertCustomer(new Customer("Alex", "alex-" + thread + "-" + i + "@gmail.com", 19));
+               // every thread also races to claim the same shared email
+               underTest.insertCustomers(List.of(new Customer("Ali", "shared-" + i + "@gmail.com", 20)));
+            }
+         });
+      }
+      executor.shutdown();
+      assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+      //Then
+      List<Customer> actual = underTest.selectAllCustomers();
+      assertThat(actual).hasSize(threads * customersPerThread + customersPerThread);
+      assertThat(actual).extracting(Customer::getId).doesNotHaveDuplicates();
+      assertThat(actual).extracting(Customer::getEmail).doesNotHaveDuplicates();
+   }
+}
@@ -1,14 +1,20 @@
 package com.amigoscode.customer;
 
 import com.amigoscode.AbstractTestContainers;
+import com.amigoscode.exception.RequestValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 
@@ -39,6 +45,97 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       assertThat(actual).isNotEmpty();
    }
 
+   @Test
+   void selectCustomersReturnsPageAfterId() {
+      //Given
+      for (int i = 0; i < 3; i++) {
+         underTest.insertCustomer(new Customer(
+               FAKER.name().fullName(),
+               FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+               20
+         ));
+      }
+      Long afterId = underTest.selectCustomers(0L, 1).get(0).getId();
+
+      //When
+      List<Customer> actual = underTest.selectCustomers(afterId, 2);
+
+      //Then
+      assertThat(actual).hasSize(2);
+      assertThat(actual).allSatisfy(c -> assertThat(c.getId()).isGreaterThan(afterId));
+      assertThat(actual.get(0).getId()).isLessThan(actual.get(1).getId());
+   }
+
+   @Test
+   void searchCustomersMatchesNameSubstringIgnoringCase() {
+      //Given
+      String token = UUID.randomUUID().toString();
+      underTest.insertCustomer(new Customer("Alex " + token, token + "-1@amigoscode.com", 20));
+      underTest.insertCustomer(new Customer("Jamila " + token, token + "-2@amigoscode.com", 20));
+
+      //When
+      List<Customer> actual = underTest.searchCustomers(new CustomerSearchCriteria(
+            "ALEX " + token.toUpperCase(), null, null, null, CustomerSortField.ID, false, null, 10));
+
+      //Then
+      assertThat(actual).extracting(Customer::getName).containsExactly("Alex " + token);
+   }
+
+   @Test
+   void searchCustomersMatchesLikeWildcardsLiterally() {
+      //Given
+      String token = UUID.randomUUID().toString();
+      underTest.insertCustomer(new Customer("100% " + token, token + "-1@amigoscode.com", 20));
+      underTest.insertCustomer(new Customer("1000 " + token, token + "-2@amigoscode.com", 20));
+
+      //When
+      List<Customer> actual = underTest.searchCustomers(new CustomerSearchCriteria(
+            "0% " + token, null, null, null, CustomerSortField.ID, false, null, 10));
+
+      //Then
+      assertThat(actual).extracting(Customer::getName).containsExactly("100% " + token);
+   }
+
+   @Test
+   void searchCustomersByEmailPrefixAndAgeRangeSortedAndContinuesAfterPosition() {
+      //Given
+      String token = UUID.randomUUID().toString();
+      for (int age : new int[]{20, 30, 40}) {
+         underTest.insertCustomer(new Customer(FAKER.name().fullName(), token + "-" + age + "@amigoscode.com", age));
+      }
+
+      //When
+      List<Customer> actual = underTest.searchCustomers(new CustomerSearchCriteria(
+            null, token, 25, null, CustomerSortField.AGE, true, null, 10));
+
+      //Then
+      assertThat(actual).extracting(Customer::getAge).containsExactly(40, 30);
+      Customer after = new Customer(actual.get(0).getId(), null, null, 40);
+      assertThat(underTest.searchCustomers(new CustomerSearchCriteria(
+            null, token, 25, null, CustomerSortField.AGE, true, after, 10)))
+            .extracting(Customer::getAge).containsExactly(30);
+   }
+
+   @Test
+   void streamAllCustomers() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Customer customer = new Customer(
+            FAKER.name().fullName(),
+            email,
+            20
+      );
+      underTest.insertCustomer(customer);
+
+      //When
+      List<Customer> actual = new ArrayList<>();
+      underTest.streamAllCustomers(actual::add);
+
+      //Then
+      assertThat(actual).hasSameSizeAs(underTest.selectAllCustomers());
+      assertThat(actual).anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+   }
+
    @Test
    void selectCustomerById() {
       //Given
@@ -50,7 +147,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
@@ -68,7 +165,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
    @Test
    void willReturnEmptyWhenSelectCustomerById() {
       //Given
-      int id = -1;
+      long id = -1;
 
       //When
       Optional<Customer> actual = underTest.selectCustomerById(id);
@@ -78,12 +175,36 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
    }
 
    @Test
-   void insertCustomer() {
+   void insertCustomerReturnsIdUnlessEmailTaken() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+      //When
+      Optional<Long> inserted = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+      Optional<Long> duplicate = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 21));
+
+      //Then
+      assertThat(inserted).hasValueSatisfying(id ->
+            assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c ->
+                  assertThat(c.getEmail()).isEqualTo(email)));
+      assertThat(duplicate).isEmpty();
+   }
+
+   @Test
+   void insertCustomersReturnsInsertedEmails() {
       //Given
+      String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
 
       //When
+      Set<String> actual = underTest.insertCustomers(List.of(
+            new Customer(FAKER.name().fullName(), takenEmail, 21),
+            new Customer(FAKER.name().fullName(), newEmail, 22)));
 
       //Then
+      assertThat(actual).containsExactly(newEmail);
+      assertThat(underTest.existsPersonWithEmail(newEmail)).isTrue();
    }
 
    @Test
@@ -127,17 +248,35 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
-      underTest.deleteCustomerById(id);
+      int deleted = underTest.deleteCustomerById(id);
 
       //Then
+      assertThat(deleted).isEqualTo(1);
+      assertThat(underTest.deleteCustomerById(id)).isZero();
       Optional<Customer> actual = underTest.selectCustomerById(id);
       assertThat(actual).isNotPresent();
    }
 
+   @Test
+   void deleteCustomerByIdOnlyDeletesMatchingVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Long id = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).orElseThrow();
+
+      //When
+      int stale = underTest.deleteCustomerById(id, 1L);
+      int deleted = underTest.deleteCustomerById(id, 0L);
+
+      //Then
+      assertThat(stale).isZero();
+      assertThat(deleted).isEqualTo(1);
+      assertThat(underTest.selectCustomerById(id)).isNotPresent();
+   }
+
    @Test
    void existsCustomerWithId() {
       //Given
@@ -149,7 +288,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
@@ -162,7 +301,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
    @Test
    void existsCustomerWithIdWillReturnFalseWhenIdNotPresent() {
       //Given
-      int id = -1;
+      long id = -1;
 
       //When
       boolean actual = underTest.existsPersonWithId(id);
@@ -182,7 +321,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       var newName = "Foo";
@@ -217,7 +356,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       var newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
@@ -251,7 +390,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       var newAge = 100;
@@ -285,7 +424,7 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
@@ -303,6 +442,116 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       assertThat(actual).isPresent().hasValue(update);
    }
 
+   @Test
+   void updateCustomerReturnsUpdatedRow() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Customer customer = new Customer(
+            FAKER.name().fullName(),
+            email,
+            20
+      );
+      underTest.insertCustomer(customer);
+
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+            .map(c -> c.getId()).findFirst().orElseThrow();
+
+      //When
+      Customer update = new Customer();
+      update.setId(id);
+      update.setAge(30);
+
+      Optional<Customer> actual = underTest.updateCustomer(update);
+
+      //Then
+      assertThat(actual).isPresent().hasValueSatisfying(c -> {
+         assertThat(c.getId()).isEqualTo(id);
+         assertThat(c.getName()).isEqualTo(customer.getName());
+         assertThat(c.getEmail()).isEqualTo(email);
+         assertThat(c.getAge()).isEqualTo(30);
+         assertThat(c.getVersion()).isEqualTo(1L);
+      });
+   }
+
+   @Test
+   void updateCustomerOnlyAppliesAtGivenVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Long id = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).orElseThrow();
+
+      Customer first = underTest.selectCustomerById(id).orElseThrow();
+      first.setAge(30);
+      underTest.updateCustomer(first);
+
+      //When
+      Customer stale = underTest.selectCustomerById(id).orElseThrow();
+      stale.setVersion(0L);
+      stale.setAge(40);
+
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(stale))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+      assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c -> {
+         assertThat(c.getAge()).isEqualTo(30);
+         assertThat(c.getVersion()).isEqualTo(1L);
+      });
+   }
+
+   @Test
+   void updateCustomerReturnsEmptyWhenCustomerDoesNotExist() {
+      //Given
+      Customer update = new Customer();
+      update.setId(-1L);
+      update.setName("Foo");
+
+      //When
+      Optional<Customer> actual = underTest.updateCustomer(update);
+
+      //Then
+      assertThat(actual).isEmpty();
+   }
+
+   @Test
+   void updateCustomerWithUnchangedValuesKeepsVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Long id = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).orElseThrow();
+
+      Customer update = new Customer();
+      update.setId(id);
+      update.setEmail(email);
+      update.setAge(20);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("no data changes found");
+      assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c ->
+            assertThat(c.getVersion()).isZero());
+   }
+
+   @Test
+   void updateCustomerEmailToTakenEmailViolatesUniqueConstraint() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
+
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+            .map(c -> c.getId()).findFirst().orElseThrow();
+
+      //When
+      Customer update = new Customer();
+      update.setId(id);
+      update.setEmail(takenEmail);
+
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(DuplicateKeyException.class);
+   }
+
    @Test
    void willNotUpdateAnythingWhenNothingToUpdate() {
       //Given
@@ -315,14 +564,15 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
       );
       underTest.insertCustomer(customer);
 
-      Integer id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.selectAllCustomers().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
       Customer update = new Customer();
       update.setId(id);
 
-      underTest.updateCustomer(update);
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(RequestValidationException.class);
 
       //Then
       Optional<Customer> actual = underTest.selectCustomerById(id);
@@ -1,12 +1,24 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.exception.RequestValidationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CustomerJpaDataAccessServiceTest {
 
@@ -36,10 +48,36 @@ class CustomerJpaDataAccessServiceTest {
       verify(customerRepository).findAll();
    }
 
+   @Test
+   void selectCustomers() {
+      //Given
+      long afterId = 10;
+      int limit = 5;
+
+      //When
+      underTest.selectCustomers(afterId, limit);
+
+      //Then
+      verify(customerRepository).findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+   }
+
+   @Test
+   void searchCustomers() {
+      //Given
+      CustomerSearchCriteria criteria = new CustomerSearchCriteria(
+            "ale", null, null, null, CustomerSortField.NAME, true, null, 10);
+
+      //When
+      underTest.searchCustomers(criteria);
+
+      //Then
+      verify(customerRepository).findBy(any(Specification.class), any());
+   }
+
    @Test
    void selectCustomerById() {
       //Given
-      int id = 1;
+      long id = 1;
 
       //When
       underTest.selectCustomerById(id);
@@ -51,13 +89,29 @@ class CustomerJpaDataAccessServiceTest {
    @Test
    void insertCustomer() {
       //Given
-      Customer customer = new Customer(1, "Ali", "ali@gmail.com", 20);
+      Customer customer = new Customer(1L, "Ali", "ali@gmail.com", 20);
 
       //When
       underTest.insertCustomer(customer);
 
       //Then
-      verify(customerRepository).save(customer);
+      verify(customerRepository).insertIfEmailAvailable("Ali", "ali@gmail.com", 20);
+   }
+
+   @Test
+   void insertCustomersSkipsTakenEmails() {
+      //Given
+      Customer alex = new Customer("Alex", "alex@gmail.com", 19);
+      Customer ali = new Customer("Ali", "ali@gmail.com", 20);
+      when(customerRepository.findTakenEmails(List.of("alex@gmail.com", "ali@gmail.com")))
+            .thenReturn(Set.of("ali@gmail.com"));
+
+      //When
+      Set<String> actual = underTest.insertCustomers(List.of(alex, ali));
+
+      //Then
+      verify(customerRepository).saveAll(List.of(alex));
+      assertThat(actual).containsExactly("alex@gmail.com");
    }
 
    @Test
@@ -75,19 +129,19 @@ class CustomerJpaDataAccessServiceTest {
    @Test
    void deleteCustomerById() {
       //Given
-      int id = 1;
+      long id = 1;
 
       //When
       underTest.deleteCustomerById(id);
 
       //Then
-      verify(customerRepository).deleteById(id);
+      verify(customerRepository).deleteCustomerById(id);
    }
 
    @Test
    void existsPersonWithId() {
       //Given
-      int id = 1;
+      long id = 1;
 
       //When
       underTest.existsPersonWithId(id);
@@ -99,12 +153,53 @@ class CustomerJpaDataAccessServiceTest {
    @Test
    void updateCustomer() {
       //Given
-      Customer customer = new Customer(1, "Ali", "ali@gmail.com", 20);
+      Customer customer = new Customer(1L, "Ali", "ali@gmail.com", 20);
+      when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+      when(customerRepository.save(customer)).thenReturn(customer);
+      Customer update = new Customer();
+      update.setId(1L);
+      update.setAge(21);
 
       //When
-      underTest.updateCustomer(customer);
+      Optional<Customer> actual = underTest.updateCustomer(update);
 
       //Then
       verify(customerRepository).save(customer);
+      assertThat(actual).hasValueSatisfying(c -> {
+         assertThat(c.getName()).isEqualTo("Ali");
+         assertThat(c.getAge()).isEqualTo(21);
+      });
+   }
+
+   @Test
+   void willThrowWhenUpdateChangesNothing() {
+      //Given
+      Customer customer = new Customer(1L, "Ali", "ali@gmail.com", 20);
+      when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+      Customer update = new Customer();
+      update.setId(1L);
+      update.setAge(20);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("no data changes found");
+      verify(customerRepository, never()).save(any());
+   }
+
+   @Test
+   void updateCustomerIsEmptyWhenCustomerDoesNotExist() {
+      //Given
+      Customer update = new Customer();
+      update.setId(1L);
+      update.setAge(21);
+      when(customerRepository.findById(1L)).thenReturn(Optional.empty());
+
+      //When
+      Optional<Customer> actual = underTest.updateCustomer(update);
+
+      //Then
+      assertThat(actual).isEmpty();
    }
 }
\ No newline at end of file
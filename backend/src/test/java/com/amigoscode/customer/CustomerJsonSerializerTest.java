@@ -0,0 +1,32 @@
+package com.amigoscode.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerJsonSerializerTest {
+
+   private final ObjectMapper beanMapper = new ObjectMapper();
+   private final ObjectMapper underTest = new ObjectMapper().registerModule(
+         new SimpleModule().addSerializer(Customer.class, new CustomerJsonSerializer()));
+
+   @Test
+   void writesSameJsonAsBeanSerializer() throws JsonProcessingException {
+      //Given
+      Customer customer = new Customer(1L, "Smith, \"Jo\" é\n", "jo@gmail.com", 19);
+      customer.setVersion(3L);
+      CustomerPage page = new CustomerPage(List.of(customer, new Customer()), "cursor");
+
+      //When
+      String actual = underTest.writeValueAsString(page);
+
+      //Then
+      assertThat(actual).isEqualTo(beanMapper.writeValueAsString(page));
+      assertThat(actual).contains("\"age\":19").contains("{\"id\":null,\"name\":null").doesNotContain("version");
+   }
+}
@@ -0,0 +1,109 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestContainers;
+import com.amigoscode.migration.Backfill;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerMigrationConfigTest extends AbstractTestContainers {
+
+   private static JdbcTemplate jdbcTemplate;
+   private final Backfill backfill = new CustomerMigrationConfig().customerPartitionedBackfill();
+   private List<Long> ids;
+
+   @BeforeAll
+   static void setUpJdbcTemplate() {
+      jdbcTemplate = getJdbcTemplate();
+   }
+
+   @AfterAll
+   static void closeJdbcTemplate() {
+      ((HikariDataSource) jdbcTemplate.getDataSource()).close();
+   }
+
+   @BeforeEach
+   void setUp() {
+      ids = jdbcTemplate.queryForList("""
+            INSERT INTO customer(name, email, age)
+            SELECT 'Alex', gen_random_uuid() || '@amigoscode.com', 20 + i
+            FROM generate_series(1, 3) i
+            RETURNING id
+            """, Long.class);
+      // as if they were there before V10's trigger
+      jdbcTemplate.update("DELETE FROM customer_partitioned WHERE id = ANY(?)", (Object) ids.toArray(Long[]::new));
+      jdbcTemplate.update("DELETE FROM customer_email WHERE customer_id = ANY(?)", (Object) ids.toArray(Long[]::new));
+   }
+
+   @Test
+   void customerPartitionedBackfillCopiesCustomersAndClaimsTheirEmails() {
+      //When
+      int rows = backfillIds();
+
+      //Then
+      assertThat(rows).isEqualTo(3);
+      assertThat(notCopied()).isEmpty();
+      assertThat(jdbcTemplate.queryForObject("""
+            SELECT count(*)
+            FROM customer
+            JOIN customer_email ON customer_email.email = customer.email AND customer_email.customer_id = customer.id
+            WHERE customer.id = ANY(?)
+            """, Long.class, (Object) ids.toArray(Long[]::new))).isEqualTo(3);
+   }
+
+   @Test
+   void customerPartitionedBackfillHandsClaimsBackToTheOwner() {
+      //Given
+      String email = jdbcTemplate.queryForObject(
+            "SELECT email FROM customer WHERE id = ?", String.class, ids.get(0));
+      jdbcTemplate.update("INSERT INTO customer_email(email, customer_id) VALUES (?, -1)", email);
+
+      //When
+      backfillIds();
+
+      //Then
+      assertThat(jdbcTemplate.queryForObject(
+            "SELECT customer_id FROM customer_email WHERE email = ?", Long.class, email))
+            .isEqualTo(ids.get(0));
+   }
+
+   @Test
+   void customerPartitionedBackfillKeepsRowsTheTriggerCopied() {
+      //Given
+      backfillIds();
+      String name = UUID.randomUUID().toString();
+      jdbcTemplate.update("UPDATE customer SET name = ? WHERE id = ?", name, ids.get(0));
+
+      //When
+      int rows = backfillIds();
+
+      //Then
+      assertThat(rows).isZero();
+      assertThat(notCopied()).isEmpty();
+      assertThat(jdbcTemplate.queryForObject(
+            "SELECT name FROM customer_partitioned WHERE id = ?", String.class, ids.get(0)))
+            .isEqualTo(name);
+   }
+
+   private int backfillIds() {
+      return jdbcTemplate.update(backfill.sql(), Collections.min(ids) - 1, Collections.max(ids));
+   }
+
+   private List<Map<String, Object>> notCopied() {
+      return jdbcTemplate.queryForList("""
+            SELECT id, name, email, age, version, updated_at FROM customer WHERE id = ANY(?)
+            EXCEPT
+            SELECT id, name, email, age, version, updated_at FROM customer_partitioned
+            """, (Object) ids.toArray(Long[]::new));
+   }
+}
@@ -0,0 +1,231 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestContainers;
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerR2dbcDataAccessServiceTest extends AbstractTestContainers {
+
+   private CustomerR2dbcDataAccessService underTest;
+
+   @BeforeEach
+   void setUp() {
+      underTest = new CustomerR2dbcDataAccessService(getDatabaseClient());
+   }
+
+   @Test
+   void selectCustomersReturnsPageAfterId() {
+      //Given
+      for (int i = 0; i < 3; i++) {
+         underTest.insertCustomer(new Customer(
+               FAKER.name().fullName(),
+               FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+               20
+         )).block();
+      }
+      Long afterId = underTest.selectCustomers(0L, 1).blockFirst().getId();
+
+      //When
+      List<Customer> actual = underTest.selectCustomers(afterId, 2).collectList().block();
+
+      //Then
+      assertThat(actual).hasSize(2);
+      assertThat(actual).allSatisfy(c -> assertThat(c.getId()).isGreaterThan(afterId));
+      assertThat(actual.get(0).getId()).isLessThan(actual.get(1).getId());
+   }
+
+   @Test
+   void streamAllCustomers() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+
+      //When
+      List<Customer> actual = underTest.streamAllCustomers().collectList().block();
+
+      //Then
+      assertThat(actual).anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+      assertThat(actual).isSortedAccordingTo((a, b) -> a.getId().compareTo(b.getId()));
+   }
+
+   @Test
+   void insertCustomerReturnsIdUnlessEmailTaken() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+      //When
+      Long inserted = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+      Long duplicate = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 21)).block();
+
+      //Then
+      assertThat(inserted).isEqualTo(idOf(email));
+      assertThat(duplicate).isNull();
+   }
+
+   @Test
+   void selectCustomerById() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Customer customer = new Customer(FAKER.name().fullName(), email, 20);
+      underTest.insertCustomer(customer).block();
+
+      Long id = idOf(email);
+
+      //When
+      Customer actual = underTest.selectCustomerById(id).block();
+
+      //Then
+      assertThat(actual).isEqualTo(new Customer(id, customer.getName(), email, 20));
+   }
+
+   @Test
+   void willReturnEmptyWhenSelectCustomerById() {
+      //When
+      Customer actual = underTest.selectCustomerById(-1L).block();
+
+      //Then
+      assertThat(actual).isNull();
+   }
+
+   @Test
+   void existsPersonWithEmail() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+
+      //When
+      Boolean actual = underTest.existsPersonWithEmail(email).block();
+
+      //Then
+      assertThat(actual).isTrue();
+      assertThat(underTest.existsPersonWithEmail("missing-" + email).block()).isFalse();
+   }
+
+   @Test
+   void deleteCustomerByIdReturnsDeletedRows() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+
+      Long id = idOf(email);
+
+      //When
+      Long actual = underTest.deleteCustomerById(id).block();
+
+      //Then
+      assertThat(actual).isEqualTo(1);
+      assertThat(underTest.deleteCustomerById(id).block()).isZero();
+   }
+
+   @Test
+   void updateCustomerReturnsUpdatedRow() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Customer customer = new Customer(FAKER.name().fullName(), email, 20);
+      underTest.insertCustomer(customer).block();
+
+      Long id = idOf(email);
+
+      //When
+      Customer update = new Customer();
+      update.setId(id);
+      update.setAge(30);
+
+      Customer actual = underTest.updateCustomer(update).block();
+
+      //Then
+      assertThat(actual).isEqualTo(new Customer(id, customer.getName(), email, 30));
+   }
+
+   @Test
+   void updateCustomerOnlyAppliesAtGivenVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+      Long id = idOf(email);
+
+      Customer first = underTest.selectCustomerById(id).block();
+      first.setAge(30);
+      underTest.updateCustomer(first).block();
+
+      //When
+      Customer stale = underTest.selectCustomerById(id).block();
+      stale.setVersion(0L);
+      stale.setAge(40);
+
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(stale).block())
+            .isInstanceOf(OptimisticLockingFailureException.class);
+      Customer actual = underTest.selectCustomerById(id).block();
+      assertThat(actual.getAge()).isEqualTo(30);
+      assertThat(actual.getVersion()).isEqualTo(1L);
+   }
+
+   @Test
+   void updateCustomerIsEmptyWhenCustomerDoesNotExist() {
+      //Given
+      Customer update = new Customer();
+      update.setId(-1L);
+      update.setName("Foo");
+      update.setVersion(0L);
+
+      //When
+      Customer actual = underTest.updateCustomer(update).block();
+
+      //Then
+      assertThat(actual).isNull();
+   }
+
+   @Test
+   void updateCustomerWithUnchangedValuesKeepsVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+      Long id = idOf(email);
+
+      Customer update = new Customer();
+      update.setId(id);
+      update.setAge(20);
+      update.setVersion(0L);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update).block())
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("no data changes found");
+      assertThat(underTest.selectCustomerById(id).block().getVersion()).isZero();
+   }
+
+   @Test
+   void updateCustomerEmailToTakenEmailViolatesUniqueConstraint() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).block();
+      underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20)).block();
+
+      Customer update = new Customer();
+      update.setId(idOf(email));
+      update.setEmail(takenEmail);
+
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(update).block())
+            .isInstanceOf(DuplicateKeyException.class);
+   }
+
+   private Long idOf(String email) {
+      return underTest.streamAllCustomers()
+            .filter(c -> c.getEmail().equals(email))
+            .map(Customer::getId)
+            .blockFirst();
+   }
+}
@@ -1,18 +1,26 @@
 package com.amigoscode.customer;
 
 import com.amigoscode.AbstractTestContainers;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class CustomerRepositoryTest extends AbstractTestContainers {
 
@@ -22,6 +30,9 @@ class CustomerRepositoryTest extends AbstractTestContainers {
    @Autowired
    private ApplicationContext applicationContext;
 
+   @Autowired
+   private EntityManagerFactory entityManagerFactory;
+
    @BeforeEach
    void setUp() {
       underTest.deleteAll();
@@ -69,7 +80,7 @@ class CustomerRepositoryTest extends AbstractTestContainers {
       );
       underTest.save(customer);
 
-      Integer id = underTest.findAll().stream().filter(c -> c.getEmail().equals(email))
+      Long id = underTest.findAll().stream().filter(c -> c.getEmail().equals(email))
             .map(c -> c.getId()).findFirst().orElseThrow();
 
       //When
@@ -82,7 +93,7 @@ class CustomerRepositoryTest extends AbstractTestContainers {
    @Test
    void existsCustomerByIdFailsWhenIdNotPresent() {
       //Given
-      int id = -1;
+      long id = -1;
 
       //When
       boolean actual = underTest.existsCustomerById(id);
@@ -90,4 +101,95 @@ class CustomerRepositoryTest extends AbstractTestContainers {
       //Then
       assertThat(actual).isFalse();
    }
+
+   @Test
+   void searchCustomersMatchesNameIgnoringCaseAndWildcards() {
+      //Given
+      String token = UUID.randomUUID().toString();
+      underTest.save(new Customer("Alex 100% " + token, token + "-1@amigoscode.com", 20));
+      underTest.save(new Customer("Alex 1000 " + token, token + "-2@amigoscode.com", 20));
+      CustomerJpaDataAccessService customerJpaDataAccessService = new CustomerJpaDataAccessService(underTest);
+
+      //When
+      List<Customer> actual = customerJpaDataAccessService.searchCustomers(new CustomerSearchCriteria(
+            "ALEX 100% " + token.toUpperCase(), token, 18, 30, CustomerSortField.NAME, false, null, 10));
+
+      //Then
+      assertThat(actual).extracting(Customer::getName).containsExactly("Alex 100% " + token);
+      Customer after = new Customer(actual.get(0).getId(), actual.get(0).getName(), null, null);
+      assertThat(customerJpaDataAccessService.searchCustomers(new CustomerSearchCriteria(
+            token, null, null, null, CustomerSortField.NAME, false, after, 10)))
+            .extracting(Customer::getName).containsExactly("Alex 1000 " + token);
+   }
+
+   @Test
+   void insertIfEmailAvailableReturnsIdUnlessEmailTaken() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+
+      //When
+      Optional<Long> inserted = underTest.insertIfEmailAvailable(FAKER.name().fullName(), email, 20);
+      Optional<Long> duplicate = underTest.insertIfEmailAvailable(FAKER.name().fullName(), email, 21);
+
+      //Then
+      assertThat(inserted).hasValueSatisfying(id ->
+            assertThat(underTest.findById(id)).hasValueSatisfying(c ->
+                  assertThat(c.getEmail()).isEqualTo(email)));
+      assertThat(duplicate).isEmpty();
+   }
+
+   @Test
+   void deleteCustomerByIdReturnsDeletedRows() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Long id = underTest.insertIfEmailAvailable(FAKER.name().fullName(), email, 20).orElseThrow();
+
+      //When
+      int actual = underTest.deleteCustomerById(id);
+
+      //Then
+      assertThat(actual).isEqualTo(1);
+      assertThat(underTest.deleteCustomerById(id)).isZero();
+   }
+
+   @Test
+   void saveRejectsStaleVersion() {
+      //Given
+      String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+      Customer saved = underTest.saveAndFlush(new Customer(FAKER.name().fullName(), email, 20));
+      Customer stale = new Customer(saved.getId(), saved.getName(), email, 30);
+      stale.setVersion(saved.getVersion());
+
+      saved.setAge(25);
+      underTest.saveAndFlush(saved);
+
+      //When
+      //Then
+      assertThat(saved.getVersion()).isEqualTo(stale.getVersion() + 1);
+      assertThatThrownBy(() -> underTest.saveAndFlush(stale))
+            .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+   }
+
+   @Test
+   void saveAllPoolsIdsAndBatchesInserts() {
+      //Given
+      int count = 100;
+      List<Customer> customers = IntStream.range(0, count)
+            .mapToObj(i -> new Customer(
+                  FAKER.name().fullName(),
+                  FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                  20))
+            .toList();
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+
+      //When
+      underTest.saveAll(customers);
+      underTest.flush();
+
+      //Then
+      // unpooled, unbatched inserts would prepare a nextval and an INSERT per customer
+      assertThat(statistics.getEntityInsertCount()).isEqualTo(count);
+      assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(count / 10);
+   }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerRouterTest {
+
+   @Mock
+   private ReactiveCustomerDao customerDao;
+   private WebTestClient webTestClient;
+
+   @BeforeEach
+   void setUp() {
+      CustomerHandler customerHandler = new CustomerHandler(new ReactiveCustomerService(customerDao));
+      webTestClient = WebTestClient
+            .bindToRouterFunction(new CustomerRouter().customerRoutes(customerHandler))
+            .build();
+   }
+
+   @Test
+   void getCustomersReturnsPageWithNextCursor() {
+      //Given
+      Customer alex = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      Customer jamila = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+      when(customerDao.selectCustomers(0L, 2)).thenReturn(Flux.just(alex, jamila));
+
+      //When
+      CustomerPage actual = webTestClient.get()
+            .uri("/api/v1/customers?size=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(CustomerPage.class)
+            .returnResult()
+            .getResponseBody();
+
+      //Then
+      assertThat(actual.customers()).containsExactly(alex);
+      assertThat(CustomerCursor.decode(actual.nextCursor())).isEqualTo(1);
+   }
+
+   @Test
+   void getCustomersStreamsNdjsonWhenRequested() {
+      //Given
+      Customer alex = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      Customer jamila = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+      when(customerDao.streamAllCustomers()).thenReturn(Flux.just(alex, jamila));
+
+      //When
+      //Then
+      webTestClient.get()
+            .uri("/api/v1/customers")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBodyList(Customer.class)
+            .contains(alex, jamila)
+            .hasSize(2);
+      verify(customerDao, never()).selectCustomers(any(), anyInt());
+   }
+
+   @Test
+   void getCustomerReturnsNotFoundWhenMissing() {
+      //Given
+      when(customerDao.selectCustomerById(10L)).thenReturn(Mono.empty());
+
+      //When
+      //Then
+      webTestClient.get()
+            .uri("/api/v1/customers/10")
+            .exchange()
+            .expectStatus().isNotFound();
+   }
+
+   @Test
+   void getCustomersRejectsInvalidSize() {
+      //When
+      //Then
+      webTestClient.get()
+            .uri("/api/v1/customers?size=abc")
+            .exchange()
+            .expectStatus().isBadRequest();
+      verifyNoInteractions(customerDao);
+   }
+
+   @Test
+   void registerCustomer() {
+      //Given
+      when(customerDao.insertCustomer(any())).thenReturn(Mono.just(1L));
+
+      //When
+      webTestClient.post()
+            .uri("/api/v1/customers")
+            .bodyValue(new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19))
+            .exchange()
+            .expectStatus().isOk();
+
+      //Then
+      ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+      verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+      assertThat(customerArgumentCaptor.getValue())
+            .isEqualTo(new Customer("Alex", "alex@gmail.com", 19));
+   }
+
+   @Test
+   void registerCustomerReturnsConflictWhenEmailTaken() {
+      //Given
+      when(customerDao.insertCustomer(any())).thenReturn(Mono.empty());
+
+      //When
+      //Then
+      webTestClient.post()
+            .uri("/api/v1/customers")
+            .bodyValue(new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+   }
+
+   @Test
+   void deleteCustomerReturnsNotFoundWhenNothingDeleted() {
+      //Given
+      when(customerDao.deleteCustomerById(10L)).thenReturn(Mono.just(0L));
+
+      //When
+      //Then
+      webTestClient.delete()
+            .uri("/api/v1/customers/10")
+            .exchange()
+            .expectStatus().isNotFound();
+   }
+
+   @Test
+   void updateCustomerReturnsConflictWhenEmailTaken() {
+      //Given
+      when(customerDao.updateCustomer(any()))
+            .thenReturn(Mono.error(new DuplicateKeyException("customer_email_unique")));
+
+      //When
+      //Then
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .bodyValue(new CustomerUpdateRequest(null, "taken@gmail.com", null))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+   }
+
+   @Test
+   void updateCustomerSendsOnlyTheFieldsAndVersionGiven() {
+      //Given
+      when(customerDao.updateCustomer(any()))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+      //When
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .header(HttpHeaders.IF_MATCH, "\"2\"")
+            .bodyValue(new CustomerUpdateRequest("Alexandro", null, null))
+            .exchange()
+            .expectStatus().isOk();
+
+      //Then
+      ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+      verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+      Customer update = customerArgumentCaptor.getValue();
+      assertThat(update).isEqualTo(new Customer(10L, "Alexandro", null, null));
+      assertThat(update.getVersion()).isEqualTo(2L);
+      verify(customerDao, never()).selectCustomerById(any());
+   }
+
+   @Test
+   void updateCustomerReturnsPreconditionFailedWhenVersionIsStale() {
+      //Given
+      when(customerDao.updateCustomer(any()))
+            .thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+      //When
+      //Then
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .header(HttpHeaders.IF_MATCH, "\"1\"")
+            .bodyValue(new CustomerUpdateRequest("Alexandro", null, null))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+   }
+
+   @Test
+   void updateCustomerRetriesWhenItLosesALock() {
+      //Given
+      when(customerDao.updateCustomer(any()))
+            .thenReturn(Mono.error(new CannotAcquireLockException("deadlock detected")))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+      //When
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .bodyValue(new CustomerUpdateRequest("Alexandro", null, null))
+            .exchange()
+            .expectStatus().isOk();
+
+      //Then
+      verify(customerDao, times(2)).updateCustomer(any());
+   }
+
+   @Test
+   void updateCustomerReturnsBadRequestWhenNothingChanges() {
+      //Given
+      when(customerDao.updateCustomer(any()))
+            .thenReturn(Mono.error(new RequestValidationException("no data changes found")));
+
+      //When
+      //Then
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .bodyValue(new CustomerUpdateRequest("Alex", null, null))
+            .exchange()
+            .expectStatus().isBadRequest();
+   }
+
+   @Test
+   void updateCustomerReturnsBadRequestWhenEmpty() {
+      //When
+      webTestClient.put()
+            .uri("/api/v1/customers/10")
+            .bodyValue(new CustomerUpdateRequest(null, null, null))
+            .exchange()
+            .expectStatus().isBadRequest();
+
+      //Then
+      verify(customerDao, never()).updateCustomer(any());
+   }
+}
@@ -1,6 +1,8 @@
 package com.amigoscode.customer;
 
+import com.amigoscode.customer.CustomerBulkRegistrationResult.Status;
 import com.amigoscode.exception.DuplicateResource;
+import com.amigoscode.exception.PreconditionFailed;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFound;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,8 +11,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -29,18 +38,174 @@ class CustomerServiceTest {
    }
 
    @Test
-   void getAllCustomers() {
+   void getCustomersReturnsLastPageWithoutCursor() {
+      //Given
+      Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      when(customerDao.selectCustomers(0L, CustomerService.DEFAULT_PAGE_SIZE + 1))
+            .thenReturn(List.of(customer));
+
+      //When
+      CustomerPage actual = underTest.getCustomers(null, null);
+
+      //Then
+      assertThat(actual.customers()).containsExactly(customer);
+      assertThat(actual.nextCursor()).isNull();
+   }
+
+   @Test
+   void getCustomersReturnsCursorForNextPage() {
+      //Given
+      Customer first = new Customer(1L, "Alex", "alex@gmail.com", 19);
+      Customer second = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+      Customer third = new Customer(3L, "Ali", "ali@gmail.com", 23);
+      when(customerDao.selectCustomers(0L, 3)).thenReturn(List.of(first, second, third));
+      when(customerDao.selectCustomers(2L, 3)).thenReturn(List.of(third));
+
+      //When
+      CustomerPage firstPage = underTest.getCustomers(null, 2);
+      CustomerPage secondPage = underTest.getCustomers(firstPage.nextCursor(), 2);
+
+      //Then
+      assertThat(firstPage.customers()).containsExactly(first, second);
+      assertThat(firstPage.nextCursor()).isNotNull();
+      assertThat(secondPage.customers()).containsExactly(third);
+      assertThat(secondPage.nextCursor()).isNull();
+   }
+
+   @Test
+   void willThrowWhenPageSizeOutOfRange() {
+      //When
+      assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("page size must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+      //Then
+      verify(customerDao, never()).selectCustomers(any(), anyInt());
+   }
+
+   @Test
+   void willThrowWhenCursorIsInvalid() {
+      //When
+      assertThatThrownBy(() -> underTest.getCustomers("not-a-cursor", null))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("invalid cursor [not-a-cursor]");
+
+      //Then
+      verify(customerDao, never()).selectCustomers(any(), anyInt());
+   }
+
+   @Test
+   void searchCustomersBuildsCriteriaFromRequest() {
+      //Given
+      CustomerSearchRequest searchRequest = new CustomerSearchRequest(
+            " ale ", "alex@", 18, 30, "age,desc", null, 20);
+
+      //When
+      underTest.searchCustomers(searchRequest);
+
+      //Then
+      verify(customerDao).searchCustomers(new CustomerSearchCriteria(
+            "ale", "alex@", 18, 30, CustomerSortField.AGE, true, null, 21));
+   }
+
+   @Test
+   void searchCustomersDefaultsToSortById() {
+      //When
+      underTest.searchCustomers(new CustomerSearchRequest(null, "", null, null, null, null, null));
+
+      //Then
+      verify(customerDao).searchCustomers(new CustomerSearchCriteria(
+            null, null, null, null, CustomerSortField.ID, false, null, CustomerService.DEFAULT_PAGE_SIZE + 1));
+   }
+
+   @Test
+   void searchCustomersReturnsCursorThatContinuesAfterLastSortValue() {
+      //Given
+      Customer alex = new Customer(7L, "Alex", "alex@gmail.com", 19);
+      Customer jamila = new Customer(3L, "Jamila", "jamila@gmail.com", 21);
+      when(customerDao.searchCustomers(any())).thenReturn(List.of(alex, jamila));
+
+      CustomerPage firstPage = underTest.searchCustomers(
+            new CustomerSearchRequest(null, null, null, null, "name", null, 1));
+
+      //When
+      underTest.searchCustomers(
+            new CustomerSearchRequest(null, null, null, null, "name", firstPage.nextCursor(), 1));
+
+      //Then
+      assertThat(firstPage.customers()).containsExactly(alex);
+      verify(customerDao).searchCustomers(new CustomerSearchCriteria(
+            null, null, null, null, CustomerSortField.NAME, false, new Customer(7L, "Alex", null, null), 2));
+   }
+
+   @Test
+   void willThrowWhenSearchCursorIsForAnotherSort() {
+      //Given
+      String cursor = CustomerCursor.encode(CustomerSortField.NAME, new Customer(7L, "Alex", "alex@gmail.com", 19));
+
+      //When
+      assertThatThrownBy(() -> underTest.searchCustomers(
+            new CustomerSearchRequest(null, null, null, null, "age", cursor, null)))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("invalid cursor [%s]".formatted(cursor));
+
+      //Then
+      verify(customerDao, never()).searchCustomers(any());
+   }
+
+   @Test
+   void willThrowWhenSearchNameIsTooShort() {
       //When
-      underTest.getAllCustomers();
+      assertThatThrownBy(() -> underTest.searchCustomers(
+            new CustomerSearchRequest("al", null, null, null, null, null, null)))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("name must be at least %s characters".formatted(CustomerService.MIN_NAME_SEARCH_LENGTH));
+
+      //Then
+      verify(customerDao, never()).searchCustomers(any());
+   }
+
+   @Test
+   void willThrowWhenSearchSortIsUnsupported() {
+      //When
+      assertThatThrownBy(() -> underTest.searchCustomers(
+            new CustomerSearchRequest(null, null, null, null, "password", null, null)))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("unsupported sort field [password]");
 
       //Then
-      verify(customerDao).selectAllCustomers();
+      verify(customerDao, never()).searchCustomers(any());
+   }
+
+   @Test
+   void willThrowWhenSearchAgeRangeIsInverted() {
+      //When
+      assertThatThrownBy(() -> underTest.searchCustomers(
+            new CustomerSearchRequest(null, null, 40, 20, null, null, null)))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("minAge must not be greater than maxAge");
+
+      //Then
+      verify(customerDao, never()).searchCustomers(any());
+   }
+
+   @Test
+   void exportCustomers() {
+      //Given
+      Consumer<Customer> consumer = customer -> {
+      };
+
+      //When
+      underTest.exportCustomers(consumer);
+
+      //Then
+      verify(customerDao).streamAllCustomers(consumer);
    }
 
    @Test
    void canGetCustomer() {
       //Given
-      int id = 10;
+      long id = 10;
       Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
 
       when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
@@ -55,7 +220,7 @@ class CustomerServiceTest {
    @Test
    void willThrowWhenGetCustomerReturnsEmptyOptional() {
       //Given
-      int id = 10;
+      long id = 10;
 
       when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
 
@@ -67,11 +232,25 @@ class CustomerServiceTest {
             .hasMessage("Customer with id [%s] not found".formatted(id));
    }
 
+   @Test
+   void isEmailAvailable() {
+      //Given
+      when(customerDao.existsPersonWithEmail("alex@gmail.com")).thenReturn(true);
+
+      //When
+      boolean taken = underTest.isEmailAvailable("alex@gmail.com");
+      boolean available = underTest.isEmailAvailable("jamila@gmail.com");
+
+      //Then
+      assertThat(taken).isFalse();
+      assertThat(available).isTrue();
+   }
+
    @Test
    void addCustomer() {
       //Given
       String email = "alex@gmail.com";
-      when(customerDao.existsPersonWithEmail(email)).thenReturn(false);
+      when(customerDao.insertCustomer(any())).thenReturn(Optional.of(1L));
 
       CustomerRegistrationRequest request = new CustomerRegistrationRequest(
             "Alex", email, 19
@@ -92,68 +271,212 @@ class CustomerServiceTest {
       assertThat(capturedCustomer.getName()).isEqualTo(request.name());
       assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
       assertThat(capturedCustomer.getAge()).isEqualTo(request.age());
+      verify(customerDao, never()).existsPersonWithEmail(any());
    }
 
    @Test
    void willThrowWhenEmailExistsWhileAddingCustomer() {
       //Given
       String email = "alex@gmail.com";
-      when(customerDao.existsPersonWithEmail(email)).thenReturn(true);
+      when(customerDao.insertCustomer(any())).thenReturn(Optional.empty());
 
       CustomerRegistrationRequest request = new CustomerRegistrationRequest(
             "Alex", email, 19
       );
 
       //When
+      //Then
       assertThatThrownBy(() -> underTest.addCustomer(request))
             .isInstanceOf(DuplicateResource.class)
             .hasMessage("Email already taken");
+   }
+
+   @Test
+   void addCustomersReportsResultPerRequest() {
+      //Given
+      List<CustomerRegistrationRequest> requests = List.of(
+            new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19),
+            new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", 21),
+            new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19),
+            new CustomerRegistrationRequest(null, "ali@gmail.com", 20));
+
+      when(customerDao.insertCustomers(anyList())).thenReturn(Set.of("alex@gmail.com"));
+
+      //When
+      List<CustomerBulkRegistrationResult> actual = underTest.addCustomers(requests);
 
-      verify(customerDao, never()).insertCustomer(any());
+      //Then
+      assertThat(actual).extracting(CustomerBulkRegistrationResult::status)
+            .containsExactly(Status.CREATED, Status.DUPLICATE, Status.DUPLICATE, Status.INVALID);
+      assertThat(actual.get(1).message()).isEqualTo("Email already taken");
+      assertThat(actual.get(2).message()).isEqualTo("Email repeated in request");
+
+      @SuppressWarnings("unchecked")
+      ArgumentCaptor<List<Customer>> customersArgumentCaptor = ArgumentCaptor.forClass(List.class);
+      verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+      assertThat(customersArgumentCaptor.getValue()).extracting(Customer::getEmail)
+            .containsExactly("alex@gmail.com", "jamila@gmail.com");
+   }
+
+   @Test
+   void willThrowWhenBulkRegistrationIsEmpty() {
+      //When
+      assertThatThrownBy(() -> underTest.addCustomers(List.of()))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("bulk registration must contain between 1 and %s customers"
+                  .formatted(CustomerService.MAX_BULK_REGISTRATIONS));
+
+      //Then
+      verify(customerDao, never()).insertCustomers(any());
+   }
+
+   @Test
+   void willThrowWhenBulkRegistrationContainsNull() {
+      //Given
+      List<CustomerRegistrationRequest> requests = new ArrayList<>();
+      requests.add(new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19));
+      requests.add(null);
+
+      //When
+      assertThatThrownBy(() -> underTest.addCustomers(requests))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("bulk registration must not contain null customers");
+
+      //Then
+      verify(customerDao, never()).insertCustomers(any());
    }
 
    @Test
    void deleteCustomer() {
       //Given
-      int id = 10;
+      long id = 10;
 
-      when(customerDao.existsPersonWithId(id)).thenReturn(true);
+      when(customerDao.deleteCustomerById(id)).thenReturn(1);
 
       //When
       underTest.deleteCustomer(id);
 
       //Then
       verify(customerDao).deleteCustomerById(id);
+      verify(customerDao, never()).existsPersonWithId(any());
    }
 
    @Test
    void willThrowWhenDeleteCustomerByIdNotExists() {
       //Given
-      int id = 10;
+      long id = 10;
 
-      when(customerDao.existsPersonWithId(id)).thenReturn(false);
+      when(customerDao.deleteCustomerById(id)).thenReturn(0);
 
       //When
+      //Then
       assertThatThrownBy(() -> underTest.deleteCustomer(id))
             .isInstanceOf(ResourceNotFound.class)
             .hasMessage("customer with id [%s] not found".formatted(id));
+   }
+
+   @Test
+   void deleteCustomerMatchingVersion() {
+      //Given
+      long id = 10;
+
+      when(customerDao.deleteCustomerById(id, 2L)).thenReturn(1);
+
+      //When
+      underTest.deleteCustomer(id, 2L);
 
       //Then
       verify(customerDao, never()).deleteCustomerById(id);
+      verify(customerDao, never()).existsPersonWithId(any());
    }
 
    @Test
-   void canUpdateAllCustomerProperties() {
+   void willThrowWhenDeleteCustomerVersionDoesNotMatch() {
       //Given
-      int id = 10;
-      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+      long id = 10;
 
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+      when(customerDao.deleteCustomerById(id, 2L)).thenReturn(0);
+      when(customerDao.existsPersonWithId(id)).thenReturn(true);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.deleteCustomer(id, 2L))
+            .isInstanceOf(PreconditionFailed.class)
+            .hasMessage("customer with id [%s] has been modified".formatted(id));
+   }
+
+   @Test
+   void willThrowWhenDeleteCustomerWithVersionNotExists() {
+      //Given
+      long id = 10;
+
+      when(customerDao.deleteCustomerById(id, 2L)).thenReturn(0);
+      when(customerDao.existsPersonWithId(id)).thenReturn(false);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.deleteCustomer(id, 2L))
+            .isInstanceOf(ResourceNotFound.class)
+            .hasMessage("customer with id [%s] not found".formatted(id));
+   }
+
+   @Test
+   void canUpdateCustomerMatchingVersion() {
+      //Given
+      long id = 10;
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+      givenUpdateSucceeds();
+
+      //When
+      Customer actual = underTest.updateCustomer(id, update, 2L);
+
+      //Then
+      assertThat(actual.getName()).isEqualTo(update.name());
+      ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+      verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+      assertThat(customerArgumentCaptor.getValue().getVersion()).isEqualTo(2L);
+   }
+
+   @Test
+   void willThrowWhenUpdateCustomerVersionDoesNotMatch() {
+      //Given
+      long id = 10;
+      when(customerDao.updateCustomer(any()))
+            .thenThrow(new OptimisticLockingFailureException("stale"));
+
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(id, update, 2L))
+            .isInstanceOf(PreconditionFailed.class)
+            .hasMessage("customer with id [%s] has been modified".formatted(id));
+   }
+
+   @Test
+   void updateCustomerIsOneStatementWithoutVersion() {
+      //Given
+      long id = 10;
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+      givenUpdateSucceeds();
 
+      //When
+      underTest.updateCustomer(id, update);
+
+      //Then
+      ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+      verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+      assertThat(customerArgumentCaptor.getValue().getVersion()).isNull();
+      verify(customerDao, never()).selectCustomerById(any());
+   }
+
+   @Test
+   void canUpdateAllCustomerProperties() {
+      //Given
+      long id = 10;
       String newEmail = "alexandro@gmail.com";
       CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", newEmail, 23);
-
-      when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+      givenUpdateSucceeds();
 
       //When
       underTest.updateCustomer(id, update);
@@ -164,6 +487,7 @@ class CustomerServiceTest {
       verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
       Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+      assertThat(capturedCustomer.getId()).isEqualTo(id);
       assertThat(capturedCustomer.getName()).isEqualTo(update.name());
       assertThat(capturedCustomer.getEmail()).isEqualTo(update.email());
       assertThat(capturedCustomer.getAge()).isEqualTo(update.age());
@@ -172,12 +496,9 @@ class CustomerServiceTest {
    @Test
    void canUpdateOnlyCustomerName() {
       //Given
-      int id = 10;
-      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
-
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
+      long id = 10;
       CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+      givenUpdateSucceeds();
 
       //When
       underTest.updateCustomer(id, update);
@@ -189,22 +510,17 @@ class CustomerServiceTest {
       Customer capturedCustomer = customerArgumentCaptor.getValue();
 
       assertThat(capturedCustomer.getName()).isEqualTo(update.name());
-      assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-      assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+      assertThat(capturedCustomer.getEmail()).isNull();
+      assertThat(capturedCustomer.getAge()).isNull();
    }
 
    @Test
    void canUpdateOnlyCustomerEmail() {
       //Given
-      int id = 10;
-      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
-
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
+      long id = 10;
       String newEmail = "alexandro@gmail.com";
       CustomerUpdateRequest update = new CustomerUpdateRequest(null, newEmail, null);
-
-      when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+      givenUpdateSucceeds();
 
       //When
       underTest.updateCustomer(id, update);
@@ -215,20 +531,17 @@ class CustomerServiceTest {
       verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
       Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-      assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+      assertThat(capturedCustomer.getName()).isNull();
       assertThat(capturedCustomer.getEmail()).isEqualTo(newEmail);
-      assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+      assertThat(capturedCustomer.getAge()).isNull();
    }
 
    @Test
    void canUpdateOnlyCustomerAge() {
       //Given
-      int id = 10;
-      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
-
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
+      long id = 10;
       CustomerUpdateRequest update = new CustomerUpdateRequest(null, null, 22);
+      givenUpdateSucceeds();
 
       //When
       underTest.updateCustomer(id, update);
@@ -239,23 +552,20 @@ class CustomerServiceTest {
       verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
       Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-      assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-      assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+      assertThat(capturedCustomer.getName()).isNull();
+      assertThat(capturedCustomer.getEmail()).isNull();
       assertThat(capturedCustomer.getAge()).isEqualTo(update.age());
    }
 
    @Test
    void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
       //Given
-      int id = 10;
-      Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
-
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
+      long id = 10;
       String newEmail = "alexandro@gmail.com";
       CustomerUpdateRequest update = new CustomerUpdateRequest(null, newEmail, null);
 
-      when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(true);
+      when(customerDao.updateCustomer(any()))
+            .thenThrow(new DuplicateKeyException("customer_email_unique"));
 
       //When
       assertThatThrownBy(() -> underTest.updateCustomer(id, update))
@@ -263,21 +573,87 @@ class CustomerServiceTest {
             .hasMessage("Email already taken");
 
       //Then
-      verify(customerDao, never()).updateCustomer(any());
+      verify(customerDao, never()).existsPersonWithEmail(any());
+   }
+
+   @Test
+   void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+      //Given
+      long id = 10;
+      when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+
+      //When
+      //Then
+      assertThatThrownBy(() -> underTest.updateCustomer(id, update))
+            .isInstanceOf(ResourceNotFound.class)
+            .hasMessage("Customer with id [%s] not found".formatted(id));
+   }
+
+   @Test
+   void willRetryUpdateThatLostALock() {
+      //Given
+      long id = 10;
+      when(customerDao.updateCustomer(any()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+
+      //When
+      Customer actual = underTest.updateCustomer(id, update);
+
+      //Then
+      assertThat(actual.getName()).isEqualTo(update.name());
+      verify(customerDao, times(2)).updateCustomer(any());
+   }
+
+   @Test
+   void willThrowWhenUpdateLosesLocksEveryAttempt() {
+      //Given
+      long id = 10;
+      when(customerDao.updateCustomer(any()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+      CustomerUpdateRequest update = new CustomerUpdateRequest("Alexandro", null, null);
+
+      //When
+      assertThatThrownBy(() -> underTest.updateCustomer(id, update))
+            .isInstanceOf(CannotAcquireLockException.class);
+
+      //Then
+      verify(customerDao, times(CustomerService.UPDATE_ATTEMPTS)).updateCustomer(any());
    }
 
    @Test
    void willThrowWhenCustomerUpdateHasNoChanges() {
       //Given
-      int id = 10;
+      long id = 10;
       Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
 
-      when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+      when(customerDao.updateCustomer(any()))
+            .thenThrow(new RequestValidationException("no data changes found"));
 
       CustomerUpdateRequest update = new CustomerUpdateRequest(
             customer.getName(), customer.getEmail(), customer.getAge()
       );
 
+      //When
+      assertThatThrownBy(() -> underTest.updateCustomer(id, update))
+            .isInstanceOf(RequestValidationException.class)
+            .hasMessage("no data changes found");
+
+      //Then
+      verify(customerDao, times(1)).updateCustomer(any());
+   }
+
+   @Test
+   void willThrowWhenCustomerUpdateIsEmpty() {
+      //Given
+      long id = 10;
+      CustomerUpdateRequest update = new CustomerUpdateRequest(null, null, null);
+
       //When
       assertThatThrownBy(() -> underTest.updateCustomer(id, update))
             .isInstanceOf(RequestValidationException.class)
@@ -286,4 +662,9 @@ class CustomerServiceTest {
       //Then
       verify(customerDao, never()).updateCustomer(any());
    }
+
+   private void givenUpdateSucceeds() {
+      when(customerDao.updateCustomer(any()))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+   }
 }
\ No newline at end of file
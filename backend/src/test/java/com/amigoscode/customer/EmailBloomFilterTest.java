@@ -0,0 +1,55 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailBloomFilterTest {
+
+   @Test
+   void mightContainEveryPutEmail() {
+      //Given
+      EmailBloomFilter underTest = new EmailBloomFilter(10_000, 0.01, 1 << 20);
+
+      //When
+      IntStream.range(0, 10_000).forEach(i -> underTest.put("customer-" + i + "@amigoscode.com"));
+
+      //Then
+      assertThat(IntStream.range(0, 10_000))
+            .allMatch(i -> underTest.mightContain("customer-" + i + "@amigoscode.com"));
+   }
+
+   @Test
+   void mightContainFewEmailsThatWereNeverPut() {
+      //Given
+      EmailBloomFilter underTest = new EmailBloomFilter(10_000, 0.01, 1 << 20);
+      IntStream.range(0, 10_000).forEach(i -> underTest.put("customer-" + i + "@amigoscode.com"));
+
+      //When
+      long falsePositives = IntStream.range(0, 10_000)
+            .filter(i -> underTest.mightContain("someone-" + i + "@gmail.com"))
+            .count();
+
+      //Then
+      assertThat(falsePositives).isLessThan(200);
+   }
+
+   @Test
+   void mightContainMoreEmailsThatWereNeverPutPastItsMaximumBits() {
+      //Given
+      EmailBloomFilter underTest = new EmailBloomFilter(10_000, 0.01, 48_000);
+      IntStream.range(0, 10_000).forEach(i -> underTest.put("customer-" + i + "@amigoscode.com"));
+
+      //When
+      long falsePositives = IntStream.range(0, 10_000)
+            .filter(i -> underTest.mightContain("someone-" + i + "@gmail.com"))
+            .count();
+
+      //Then
+      assertThat(IntStream.range(0, 10_000))
+            .allMatch(i -> underTest.mightContain("customer-" + i + "@amigoscode.com"));
+      assertThat(falsePositives).isBetween(200L, 2_000L);
+   }
+}
@@ -1,8 +1,11 @@
 package com.amigoscode.journey;
 
 import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerPage;
 import com.amigoscode.customer.CustomerRegistrationRequest;
 import com.amigoscode.customer.CustomerUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.github.javafaker.Faker;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +15,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 
@@ -26,6 +32,32 @@ public class CustomerIntegrationTest {
    private WebTestClient webTestClient;
 
    private static final Random RANDOM = new Random();
+   private static final ObjectMapper CBOR_MAPPER = new CBORMapper();
+
+   private List<Customer> getAllCustomers() {
+      List<Customer> customers = new ArrayList<>();
+      Optional<String> cursor = Optional.empty();
+      do {
+         Optional<String> current = cursor;
+         CustomerPage page = webTestClient.get()
+               .uri(uriBuilder -> uriBuilder
+                     .path("/api/v1/customers")
+                     .queryParam("size", 500)
+                     .queryParamIfPresent("cursor", current)
+                     .build())
+               .accept(MediaType.APPLICATION_JSON)
+               .exchange()
+               .expectStatus()
+               .isOk()
+               .expectBody(CustomerPage.class)
+               .returnResult()
+               .getResponseBody();
+
+         customers.addAll(page.customers());
+         cursor = Optional.ofNullable(page.nextCursor());
+      } while (cursor.isPresent());
+      return customers;
+   }
 
    @Test
    void canRegisterCustomer() {
@@ -47,16 +79,7 @@ public class CustomerIntegrationTest {
             .isOk();
 
       //get all customers
-      List<Customer> allCustomers = webTestClient.get()
-            .uri("/api/v1/customers")
-            .accept(MediaType.APPLICATION_JSON)
-            .exchange()
-            .expectStatus()
-            .isOk()
-            .expectBodyList(new ParameterizedTypeReference<Customer>() {
-            })
-            .returnResult()
-            .getResponseBody();
+      List<Customer> allCustomers = getAllCustomers();
 
       //make sure customer is present
       Customer expected = new Customer(name, email, age);
@@ -66,7 +89,7 @@ public class CustomerIntegrationTest {
             .contains(expected);
 
       //get customer by id
-      int id = allCustomers.stream()
+      long id = allCustomers.stream()
             .filter(c -> c.getEmail().equals(email))
             .map(Customer::getId)
             .findFirst()
@@ -105,19 +128,10 @@ public class CustomerIntegrationTest {
             .isOk();
 
       //get all customers
-      List<Customer> allCustomers = webTestClient.get()
-            .uri("/api/v1/customers")
-            .accept(MediaType.APPLICATION_JSON)
-            .exchange()
-            .expectStatus()
-            .isOk()
-            .expectBodyList(new ParameterizedTypeReference<Customer>() {
-            })
-            .returnResult()
-            .getResponseBody();
+      List<Customer> allCustomers = getAllCustomers();
 
       //get customer by id
-      int id = allCustomers.stream()
+      long id = allCustomers.stream()
             .filter(c -> c.getEmail().equals(email))
             .map(Customer::getId)
             .findFirst()
@@ -161,19 +175,10 @@ public class CustomerIntegrationTest {
             .isOk();
 
       //get all customers
-      List<Customer> allCustomers = webTestClient.get()
-            .uri("/api/v1/customers")
-            .accept(MediaType.APPLICATION_JSON)
-            .exchange()
-            .expectStatus()
-            .isOk()
-            .expectBodyList(new ParameterizedTypeReference<Customer>() {
-            })
-            .returnResult()
-            .getResponseBody();
+      List<Customer> allCustomers = getAllCustomers();
 
       //get customer by id
-      int id = allCustomers.stream()
+      long id = allCustomers.stream()
             .filter(c -> c.getEmail().equals(email))
             .map(Customer::getId)
             .findFirst()
@@ -208,6 +213,58 @@ public class CustomerIntegrationTest {
 
       assertThat(updatedCustomer).isEqualTo(expected )   ;
    }
+
+   @Test
+   void canRegisterAndUpdateCustomerOverCbor() throws IOException {
+      //create a registration request
+      Faker faker = new Faker();
+      String name = faker.name().fullName();
+      String email = faker.name().lastName() + "-" + UUID.randomUUID() + "@amigoscode.com";
+      int age = RANDOM.nextInt(1, 100);
+      CustomerRegistrationRequest request = new CustomerRegistrationRequest(name, email, age);
+
+      //send a cbor post request
+      webTestClient.post()
+            .uri("/api/v1/customers")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .bodyValue(CBOR_MAPPER.writeValueAsBytes(request))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+      //get customer by id
+      long id = getAllCustomers().stream()
+            .filter(c -> c.getEmail().equals(email))
+            .map(Customer::getId)
+            .findFirst()
+            .orElseThrow();
+
+      //update the customer with a cbor body
+      CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Ali", null, null);
+
+      webTestClient.put()
+            .uri("/api/v1/customers/{id}", id)
+            .contentType(MediaType.APPLICATION_CBOR)
+            .bodyValue(CBOR_MAPPER.writeValueAsBytes(updateRequest))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+      //get customer by id as cbor
+      byte[] body = webTestClient.get()
+            .uri("/api/v1/customers/{id}", id)
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_CBOR)
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+      assertThat(CBOR_MAPPER.readValue(body, Customer.class)).isEqualTo(new Customer(id, "Ali", email, age));
+   }
 }
 
 
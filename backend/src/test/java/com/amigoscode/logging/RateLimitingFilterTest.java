@@ -0,0 +1,52 @@
+package com.amigoscode.logging;
+
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitingFilterTest {
+
+   private RateLimitingFilter underTest;
+
+   @BeforeEach
+   void setUp() {
+      underTest = new RateLimitingFilter();
+      underTest.setEventsPerSecond(2);
+   }
+
+   @Test
+   void decideDeniesEventsOverTheLimitWithinASecond() {
+      //When
+      FilterReply first = underTest.decide(eventAt(1_000));
+      FilterReply second = underTest.decide(eventAt(1_500));
+      FilterReply third = underTest.decide(eventAt(1_999));
+
+      //Then
+      assertThat(first).isEqualTo(FilterReply.NEUTRAL);
+      assertThat(second).isEqualTo(FilterReply.NEUTRAL);
+      assertThat(third).isEqualTo(FilterReply.DENY);
+   }
+
+   @Test
+   void decideAllowsEventsAgainInTheNextSecond() {
+      //Given
+      underTest.decide(eventAt(1_000));
+      underTest.decide(eventAt(1_100));
+      underTest.decide(eventAt(1_200));
+
+      //When
+      FilterReply actual = underTest.decide(eventAt(2_000));
+
+      //Then
+      assertThat(actual).isEqualTo(FilterReply.NEUTRAL);
+   }
+
+   private static LoggingEvent eventAt(long timeStamp) {
+      LoggingEvent event = new LoggingEvent();
+      event.setTimeStamp(timeStamp);
+      return event;
+   }
+}
@@ -0,0 +1,108 @@
+package com.amigoscode.migration;
+
+import com.amigoscode.AbstractTestContainers;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackfillRunnerTest extends AbstractTestContainers {
+
+   private static JdbcTemplate jdbcTemplate;
+   private final Backfill backfill = new Backfill(
+         "double-" + UUID.randomUUID(),
+         "backfill_test",
+         """
+               UPDATE backfill_test
+               SET doubled = value * 2
+               WHERE id > ? AND id <= ? AND doubled IS NULL
+               """);
+   private BackfillRunner underTest;
+
+   @BeforeAll
+   static void setUpJdbcTemplate() {
+      jdbcTemplate = getJdbcTemplate();
+   }
+
+   @AfterAll
+   static void closeJdbcTemplate() {
+      ((HikariDataSource) jdbcTemplate.getDataSource()).close();
+   }
+
+   @BeforeEach
+   void setUp() {
+      jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS backfill_test
+            (
+                id      BIGINT PRIMARY KEY,
+                value   INT NOT NULL,
+                doubled INT
+            )
+            """);
+      jdbcTemplate.execute("TRUNCATE backfill_test");
+      jdbcTemplate.update("INSERT INTO backfill_test(id, value) SELECT i, i FROM generate_series(1, 25) i");
+      underTest = new BackfillRunner(
+            List.of(backfill),
+            jdbcTemplate,
+            new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+            new BackfillProperties(true, 10, Duration.ZERO, Duration.ofSeconds(2)));
+   }
+
+   @Test
+   void runBackfillsEveryRowInBatches() {
+      //When
+      boolean completed = underTest.run(backfill);
+
+      //Then
+      assertThat(completed).isTrue();
+      assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM backfill_test WHERE doubled = value * 2", Long.class))
+            .isEqualTo(25);
+      assertThat(jdbcTemplate.queryForMap("""
+            SELECT last_id, backfilled_rows, completed_at IS NOT NULL AS completed
+            FROM backfill
+            WHERE name = ?
+            """, backfill.name()))
+            .containsEntry("last_id", 25L)
+            .containsEntry("backfilled_rows", 25L)
+            .containsEntry("completed", true);
+   }
+
+   @Test
+   void runCarriesOnAfterTheLastCommittedBatch() {
+      //Given
+      jdbcTemplate.update("INSERT INTO backfill(name, last_id) VALUES (?, 20)", backfill.name());
+
+      //When
+      underTest.run(backfill);
+
+      //Then
+      List<Long> backfilledIds = jdbcTemplate.queryForList(
+            "SELECT id FROM backfill_test WHERE doubled IS NOT NULL ORDER BY id", Long.class);
+      assertThat(backfilledIds).containsExactly(21L, 22L, 23L, 24L, 25L);
+   }
+
+   @Test
+   void runDoesNothingOnceCompleted() {
+      //Given
+      underTest.run(backfill);
+      jdbcTemplate.update("UPDATE backfill_test SET doubled = NULL WHERE id = 1");
+
+      //When
+      boolean completed = underTest.run(backfill);
+
+      //Then
+      assertThat(completed).isTrue();
+      assertThat(jdbcTemplate.queryForObject(
+            "SELECT doubled FROM backfill_test WHERE id = 1", Integer.class)).isNull();
+   }
+}
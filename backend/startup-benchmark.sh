@@ -0,0 +1,106 @@
+#!/usr/bin/env bash
+# Startup time, time to the first served request and resident memory of the backend per
+# launch mode, the median of RUNS starts each. Expects a database on localhost:5332
+# (docker compose up -d db) and a packaged jar (mvn package -DskipTests); the native mode
+# also needs mvn -Pnative package, the image modes mvn -Pcds package.
+#
+#   ./startup-benchmark.sh [mode...]
+#   modes: jvm lazy aot cds aot-cds native image image-cds, default all that are built
+set -euo pipefail
+
+cd "$(dirname "$0")"
+RUNS=${RUNS:-5}
+PORT=${PORT:-8099}
+JAR=target/spring-boot-example-0.0.1-SNAPSHOT.jar
+NATIVE=target/spring-boot-example
+WORK=target/startup-benchmark
+IMAGE_APP=target/cds/app
+IMAGE_ARCHIVE=target/cds/archive/app.jsa
+
+# CDS only archives classes loaded from jar files named on the class path, so the fat
+# jar is unpacked into an application jar plus its libraries
+unpack() {
+   rm -rf "$WORK" && mkdir -p "$WORK/unpacked"
+   (cd "$WORK/unpacked" && jar -xf "../../../$JAR")
+   jar --create --file "$WORK/app.jar" -C "$WORK/unpacked/BOOT-INF/classes" .
+   # in the jar's own order, which is the order the launcher uses
+   CLASSPATH_JARS="$WORK/app.jar$(sed -n 's|^- "\(.*\)"$|:'"$WORK"'/unpacked/\1|p' "$WORK/unpacked/BOOT-INF/classpath.idx" | tr -d '\n')"
+}
+
+# the class path of the jib image, staged by cds-training.sh
+image_classpath() {
+   echo "$(ls "$IMAGE_APP"/classpath/*.jar):$(sed "s|/app/libs|$IMAGE_APP/libs|g" target/cds/classpath.txt)"
+}
+
+# a training run that stops right after the context refreshed, dumping what it loaded
+archive() {
+   local archive=$1; shift
+   java -XX:ArchiveClassesAtExit="$archive" -Dspring.context.exit=onRefresh "$@" \
+         -cp "$CLASSPATH_JARS" com.amigoscode.Main --server.port="$PORT" > "$WORK/training.log" 2>&1 || true
+}
+
+command_for() {
+   case $1 in
+      jvm) echo "java -jar $JAR" ;;
+      lazy) echo "java -jar $JAR --spring.profiles.active=lazy" ;;
+      aot) echo "java -Dspring.aot.enabled=true -jar $JAR" ;;
+      cds) echo "java -XX:SharedArchiveFile=$WORK/app.jsa -cp $CLASSPATH_JARS com.amigoscode.Main" ;;
+      aot-cds) echo "java -XX:SharedArchiveFile=$WORK/app-aot.jsa -Dspring.aot.enabled=true -cp $CLASSPATH_JARS com.amigoscode.Main" ;;
+      native) echo "$NATIVE" ;;
+      image) echo "java -cp $(image_classpath) com.amigoscode.Main" ;;
+      # fails instead of starting without the archive when it cannot be mapped
+      image-cds) echo "java -Xshare:on -XX:SharedArchiveFile=$IMAGE_ARCHIVE -cp $(image_classpath) com.amigoscode.Main" ;;
+   esac
+}
+
+# prints "<seconds until started> <seconds until the first request was served>
+# <rss in MB after it>"
+measure() {
+   local log=$WORK/run.log
+   rm -f "$log"
+   local launched
+   launched=$(date +%s.%N)
+   $(command_for "$1") --server.port="$PORT" > "$log" 2>&1 &
+   local pid=$!
+   until curl -sf -o /dev/null "localhost:$PORT/api/v1/customers"; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+         echo "$1 did not start, see $log" >&2
+         exit 1
+      fi
+      sleep 0.1
+   done
+   local first_request seconds rss
+   first_request=$(awk -v from="$launched" -v to="$(date +%s.%N)" 'BEGIN { print to - from }')
+   seconds=$(grep -o 'process running for [0-9.]*' "$log" | grep -o '[0-9.]*$')
+   rss=$(awk '/VmRSS/ { printf "%d", $2 / 1024 }' "/proc/$pid/status")
+   kill "$pid" && wait "$pid" 2>/dev/null || true
+   echo "$seconds $first_request $rss"
+}
+
+median() {
+   sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+   MODES=(jvm lazy aot cds aot-cds)
+   [ -x "$NATIVE" ] && MODES+=(native)
+   [ -s "$IMAGE_ARCHIVE" ] && MODES+=(image image-cds)
+fi
+
+unpack
+for mode in "${MODES[@]}"; do
+   case $mode in
+      cds) archive "$WORK/app.jsa" ;;
+      aot-cds) archive "$WORK/app-aot.jsa" -Dspring.aot.enabled=true ;;
+   esac
+done
+
+printf '%-10s %10s %16s %8s\n' mode startup_s first_request_s rss_mb
+for mode in "${MODES[@]}"; do
+   results=$(for _ in $(seq "$RUNS"); do measure "$mode"; done)
+   printf '%-10s %10s %16s %8s\n' "$mode" \
+         "$(cut -d' ' -f1 <<< "$results" | median)" \
+         "$(cut -d' ' -f2 <<< "$results" | median)" \
+         "$(cut -d' ' -f3 <<< "$results" | median)"
+done